@@ -0,0 +1,97 @@
+import java.lang.reflect.Array;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+// Result of a Breadth First search from one or more sources over a whole graph: the distance to, and the
+// parent of, every reachable node, kept in int arrays indexed by node id. Any number of distance and path
+// lookups can then be answered from this one traversal. See Graph.bfsTree.
+// The tree refers to the graph's node ids, so it is only valid until the graph is next changed. After that,
+// every method throws IllegalStateException.
+public class BfsTree<K> {
+    // dist[id] is the number of edges from the nearest source to the node, or -1 if it was not reached.
+    private final int[] dist;
+
+    // parent[id] is the node from which the node was reached, or -1 for sources and unreached nodes.
+    private final int[] parent;
+
+    // Map node names to ids (-1 if not in the graph) and back.
+    private final ToIntFunction<K> idOf;
+    private final IntFunction<K> nameOf;
+
+    // Version (modification count) of the graph the tree was built on, and the current version of the graph.
+    private final int version;
+    private final IntSupplier graphVersion;
+
+    BfsTree(int[] dist, int[] parent, ToIntFunction<K> idOf, IntFunction<K> nameOf, int version,
+            IntSupplier graphVersion) {
+        this.dist = dist;
+        this.parent = parent;
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.version = version;
+        this.graphVersion = graphVersion;
+    }
+
+    // Throws IllegalStateException if the graph has changed since the tree was built, since node ids may
+    // then belong to other nodes, or be past the end of the arrays.
+    private void checkValid() {
+        if (graphVersion.getAsInt() != version) {
+            throw new IllegalStateException("The graph has changed since the BFS tree was built");
+        }
+    }
+
+    // Returns whether the node was reached from a source.
+    public boolean reaches(K name) {
+        return distanceTo(name) >= 0;
+    }
+
+    // Returns the number of edges on a shortest path from the nearest source to the node, or -1 if the node
+    // can not be reached (or is not in the graph).
+    public int distanceTo(K name) {
+        checkValid();
+        int id = idOf.applyAsInt(name);
+        return id < 0 ? -1 : dist[id];
+    }
+
+    // Returns the source nearest to the node (the one the path starts at), or null if it was not reached.
+    public K sourceOf(K name) {
+        checkValid();
+        int id = idOf.applyAsInt(name);
+        if (id < 0 || dist[id] < 0) {
+            return null;
+        }
+        while (parent[id] >= 0) {
+            id = parent[id];
+        }
+        return nameOf.apply(id);
+    }
+
+    // Returns a shortest path from the nearest source to the node, as an array of node names. Returns
+    // 0 length array if the node was not reached. With a single source, this is the same path as
+    // Graph.BFS(source, name) returns.
+    public K[] pathTo(K name) {
+        checkValid();
+        int id = idOf.applyAsInt(name);
+        int length = id < 0 || dist[id] < 0 ? 0 : dist[id] + 1;
+        @SuppressWarnings("unchecked")
+        K[] pathNames = (K[]) Array.newInstance(name.getClass(), length);
+        for (int index = length - 1; index >= 0; index--) {
+            pathNames[index] = nameOf.apply(id);
+            id = parent[id];
+        }
+        return pathNames;
+    }
+
+    // Returns the number of nodes reached, sources included.
+    public int reachedCount() {
+        checkValid();
+        int count = 0;
+        for (int d : dist) {
+            if (d >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+// Bucket queue (Dial's algorithm) of vertex ids 0..capacity-1 with non-negative integer priorities, for
+// Dijkstra's algorithm on graphs whose edge weights are all small.
+// There is one bucket per priority value in a window of buckets.length consecutive values, used circularly:
+// an id with priority p is kept in bucket p % buckets.length. Dijkstra's algorithm only adds priorities
+// between the last polled one and that plus the largest edge weight, so with one more bucket than the
+// largest weight, ids of different priorities never share a bucket, and no comparisons are needed at all.
+// poll() scans forward from the last polled priority to the next non-empty bucket.
+// Each bucket is a doubly linked list threaded through arrays indexed by id, so decrease-key just moves the
+// id to another bucket, and nothing is allocated once the queue is created.
+final class BucketQueue implements IndexedPriorityQueue {
+    // First id in each bucket, or -1 if the bucket is empty.
+    private final int[] head;
+
+    // Next and previous ids in the same bucket, or -1, indexed by id.
+    private final int[] next;
+    private final int[] previous;
+
+    // Priority of each id in the queue, or -1 if the id is not in the queue.
+    private final long[] priority;
+
+    // Priority of the id polled last, or 0 if none was polled since the queue was created or cleared. No id in
+    // the queue has a lower priority.
+    private long current;
+
+    private int size;
+
+    // Constructs an empty queue for ids 0..capacity-1, whose priorities may span up to buckets consecutive
+    // values at any time.
+    BucketQueue(int capacity, int buckets) {
+        head = new int[buckets];
+        next = new int[capacity];
+        previous = new int[capacity];
+        priority = new long[capacity];
+        Arrays.fill(head, -1);
+        Arrays.fill(priority, -1);
+    }
+
+    // Returns the number of ids the queue can hold.
+    int capacity() {
+        return priority.length;
+    }
+
+    // Returns the number of buckets.
+    int buckets() {
+        return head.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds id with the given priority, or lowers its priority if it is in the queue already with a higher one.
+    // The priority must be at least the last one polled (or 0), and less than that plus buckets().
+    public boolean offer(int id, long newPriority) {
+        if (priority[id] >= 0) {
+            if (newPriority >= priority[id]) {
+                return false;
+            }
+            unlink(id);
+        }
+        priority[id] = newPriority;
+        int bucket = (int) (newPriority % head.length);
+        int first = head[bucket];
+        next[id] = first;
+        previous[id] = -1;
+        if (first >= 0) {
+            previous[first] = id;
+        }
+        head[bucket] = id;
+        size++;
+        return true;
+    }
+
+    public int poll() {
+        int bucket = (int) (current % head.length);
+        while (head[bucket] < 0) {
+            current++;
+            bucket = bucket + 1 == head.length ? 0 : bucket + 1;
+        }
+        int id = head[bucket];
+        unlink(id);
+        priority[id] = -1;
+        return id;
+    }
+
+    public void clear() {
+        for (int bucket = 0; bucket < head.length && size > 0; bucket++) {
+            for (int id = head[bucket]; id >= 0; id = next[id]) {
+                priority[id] = -1;
+                size--;
+            }
+            head[bucket] = -1;
+        }
+        current = 0;
+    }
+
+    // Takes id out of its bucket.
+    private void unlink(int id) {
+        int before = previous[id];
+        int after = next[id];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            head[(int) (priority[id] % head.length)] = after;
+        }
+        if (after >= 0) {
+            previous[after] = before;
+        }
+        size--;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+// Union-find (disjoint set) structure over vertex ids 0..size-1, recording which vertices are in the same
+// connected component of a graph. Adding edges only ever merges components, so the index is updated in
+// place as edges are added; removing vertices can split components, so the owner rebuilds it instead.
+// Union is by size, so trees stay O(log n) deep and find() does not need to compress paths. That keeps
+// find() free of writes, and any number of threads may call it at once while no union or add is running.
+final class ComponentIndex {
+    // parent[v] is the parent of v in its tree, or v itself if v is the root of its component.
+    private int[] parent;
+
+    // Number of vertices in the tree of each root. Only valid for roots.
+    private int[] treeSize;
+
+    // Number of vertex ids in use.
+    private int size;
+
+    // Constructs an index of size vertices, each in a component of its own.
+    ComponentIndex(int size) {
+        int capacity = Math.max(size, 16);
+        parent = new int[capacity];
+        treeSize = new int[capacity];
+        for (int v = 0; v < size; v++) {
+            parent[v] = v;
+            treeSize[v] = 1;
+        }
+        this.size = size;
+    }
+
+    // Adds a vertex with the next id, in a component of its own.
+    void add() {
+        if (size == parent.length) {
+            parent = Arrays.copyOf(parent, size * 2);
+            treeSize = Arrays.copyOf(treeSize, size * 2);
+        }
+        parent[size] = size;
+        treeSize[size] = 1;
+        size++;
+    }
+
+    // Merges the components of a and b.
+    void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        // Hang the smaller tree below the root of the larger one.
+        if (treeSize[rootA] < treeSize[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        treeSize[rootA] += treeSize[rootB];
+    }
+
+    // Returns the root of the component of v, which identifies the component.
+    int find(int v) {
+        while (parent[v] != v) {
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // Returns whether a and b are in the same component.
+    boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+}
@@ -0,0 +1,38 @@
+// Bounds on the number of edges on a shortest path between two vertices, as given by Graph.estimateDistance.
+// The true distance is never below getLower() and never above getUpper(). When the vertices can not reach
+// each other, both bounds are Integer.MAX_VALUE; when no upper bound is known, getUpper() is
+// Integer.MAX_VALUE.
+public class DistanceEstimate {
+    private final int lower;
+    private final int upper;
+
+    DistanceEstimate(int lower, int upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    // Returns a number of edges no greater than the distance.
+    public int getLower() {
+        return lower;
+    }
+
+    // Returns a number of edges no smaller than the distance.
+    public int getUpper() {
+        return upper;
+    }
+
+    // Returns whether the vertices may be connected, that is, whether the lower bound is finite.
+    public boolean isReachable() {
+        return lower != Integer.MAX_VALUE;
+    }
+
+    // Returns whether the bounds are equal, so that the distance is known exactly.
+    public boolean isExact() {
+        return lower == upper;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + (upper == Integer.MAX_VALUE ? "inf" : String.valueOf(upper)) + "]";
+    }
+}
@@ -0,0 +1,494 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable snapshot of a Graph in compressed sparse row (CSR) form.
+// Vertices are identified by dense int ids 0..size()-1, assigned in sorted key order. The neighbors of
+// vertex id are targets[offsets[id]] .. targets[offsets[id + 1] - 1], kept in sorted order just like the
+// neighbor lists of Graph, so BFS and DFS visit vertices in the same order and return the same paths.
+// If any edge has a weight other than 1, weights[e] holds the weight of the edge to targets[e].
+// Since the snapshot is never modified, any number of threads may query it at the same time.
+public class FrozenGraph<K extends Comparable<? super K>, V> {
+    // Binary file format written by save() and read by load(). All numbers are big-endian:
+    //   int MAGIC, int VERSION, int vertex count n, int neighbor entry count m, int weighted (0 or 1),
+    //   int[n + 1] offsets, int[m] targets, int[m] weights if weighted,
+    //   then the Object[] of keys and the Object[] of data, written with ObjectOutputStream.
+    // The arrays are read back with bulk copies out of a memory mapping, without any parsing.
+    // Version 1 files have no weighted flag and no weights, and are still read.
+    private static final int MAGIC = 0x47524148; // "GRAH"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int VERSION_1_HEADER_BYTES = 16;
+
+    // Largest number of ints mapped at a time when reading or writing the arrays.
+    private static final int IO_BLOCK_INTS = 1 << 24;
+
+    // Vertex names in sorted order. The position of a name in this array is its vertex id, which makes
+    // the array the key -> id index as well (looked up with binary search).
+    private final Object[] keys;
+
+    // Data associated with each vertex, indexed by vertex id.
+    private final Object[] data;
+
+    // offsets[id] is the position in targets of the first neighbor of vertex id. Has size() + 1 entries.
+    private final int[] offsets;
+
+    // Neighbor ids of all vertices, one vertex after another.
+    private final int[] targets;
+
+    // Weights of the edges in targets, or null if all edges have weight 1.
+    private final int[] weights;
+
+    // Constructs an unweighted snapshot from the given arrays.
+    FrozenGraph(Object[] keys, Object[] data, int[] offsets, int[] targets) {
+        this(keys, data, offsets, targets, null);
+    }
+
+    // Constructs the snapshot from the given arrays. Used by Graph.freeze(), GraphBuilder and load(),
+    // which pass freshly built arrays that nobody else holds a reference to.
+    FrozenGraph(Object[] keys, Object[] data, int[] offsets, int[] targets, int[] weights) {
+        this.keys = keys;
+        this.data = data;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // Returns the number of vertices in the graph.
+    public int size() {
+        return keys.length;
+    }
+
+    // Returns the number of undirected edges in the graph.
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    // Returns the id of the vertex with the given name, or -1 if no such vertex exists.
+    // Since the keys are sorted, we use binary search.
+    public int indexOf(K name) {
+        int left = 0;
+        int right = keys.length - 1;
+        while (left <= right) {
+            int mid = (left + right) >>> 1;
+            int comp = key(mid).compareTo(name);
+            if (comp == 0) {
+                return mid;
+            }
+            if (comp < 0) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the name of the vertex with the given id.
+    @SuppressWarnings("unchecked")
+    public K key(int id) {
+        return (K) keys[id];
+    }
+
+    // Returns the data of the vertex with the given id.
+    @SuppressWarnings("unchecked")
+    public V data(int id) {
+        return (V) data[id];
+    }
+
+    // Returns the number of neighbors of the vertex with the given id.
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    // Returns the i-th neighbor (in sorted order) of the vertex with the given id.
+    public int neighbor(int id, int i) {
+        return targets[offsets[id] + i];
+    }
+
+    // Returns the weight of the edge from vertex id to its i-th neighbor.
+    public int weight(int id, int i) {
+        return weights == null ? 1 : weights[offsets[id] + i];
+    }
+
+    // Prints the graph in adjacency list form, same as Graph.printGraph().
+    public void printGraph() {
+        for (int id = 0; id < keys.length; id++) {
+            System.out.print(key(id));
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                System.out.print(" " + key(targets[e]));
+            }
+            System.out.println();
+        }
+    }
+
+    // Finds a path between node from and node to using Breadth First search, as an array of node names.
+    // Returns 0 length array if no path exists.
+    public K[] BFS(K from, K to) {
+        PathBuffer<K> path = PathBuffer.local();
+        BFS(from, to, path);
+        K[] result = path.toArray(from);
+        path.clear();
+        return result;
+    }
+
+    // Same as BFS(from, to), but writes the path to the given buffer instead of returning a new array, and
+    // returns whether a path was found. Allocates nothing once the buffer has grown to fit the paths.
+    public boolean BFS(K from, K to, PathBuffer<K> path) {
+        int fromId = indexOf(from);
+        int toId = indexOf(to);
+        path.clear();
+        // If either from node or to node are not found in the graph, there is no path.
+        if (fromId < 0 || toId < 0) {
+            return false;
+        }
+        // If from and to are the same, the path has one node.
+        if (fromId == toId) {
+            path.add(from);
+            return true;
+        }
+        // Get this thread's search state, with no vertex visited yet. Each vertex enters the queue at most
+        // once, so a plain array with head and tail indexes is enough for the queue.
+        SearchState state = SearchState.acquire(keys.length);
+        int[] queue = state.queue;
+        int head = 0;
+        int tail = 0;
+        state.visit(fromId, fromId);
+        queue[tail++] = fromId;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int neighbor = targets[e];
+                // Continue breadth first search, insert neighbor into the queue if not visited before.
+                if (!state.isVisited(neighbor)) {
+                    state.visit(neighbor, v);
+                    // Check if we found the destination node.
+                    if (neighbor == toId) {
+                        constructPath(fromId, toId, state, path);
+                        return true;
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Finds a path between node from and node to using Depth First search, as an array of node names.
+    // Returns 0 length array if no path exists.
+    // Visits the vertices in the same order as the recursive Graph.DFS, but keeps an explicit stack
+    // so that the depth of the search is not limited by the call stack.
+    public K[] DFS(K from, K to) {
+        PathBuffer<K> path = PathBuffer.local();
+        DFS(from, to, path);
+        K[] result = path.toArray(from);
+        path.clear();
+        return result;
+    }
+
+    // Same as DFS(from, to), but writes the path to the given buffer (see BFS(K, K, PathBuffer)).
+    public boolean DFS(K from, K to, PathBuffer<K> path) {
+        int fromId = indexOf(from);
+        int toId = indexOf(to);
+        path.clear();
+        // If either from node or to node are not found in the graph, there is no path.
+        if (fromId < 0 || toId < 0) {
+            return false;
+        }
+        // If from and to are the same, the path has one node.
+        if (fromId == toId) {
+            path.add(from);
+            return true;
+        }
+        // Each stack frame holds a vertex and the position of the next neighbor edge to look at.
+        SearchState state = SearchState.acquire(keys.length);
+        int[] stackVertex = state.queue;
+        int[] stackEdge = state.cursor;
+        int depth = 0;
+        state.visit(fromId, fromId);
+        stackVertex[0] = fromId;
+        stackEdge[0] = offsets[fromId];
+        while (depth >= 0) {
+            int v = stackVertex[depth];
+            int e = stackEdge[depth];
+            if (e == offsets[v + 1]) {
+                // All neighbors done, backtrack.
+                depth--;
+                continue;
+            }
+            stackEdge[depth] = e + 1;
+            int neighbor = targets[e];
+            // Check if we reached the destination.
+            if (neighbor == toId) {
+                state.setParent(neighbor, v);
+                constructPath(fromId, toId, state, path);
+                return true;
+            }
+            // If neighbor not visited, go depth first looking for the destination.
+            if (!state.isVisited(neighbor)) {
+                state.visit(neighbor, v);
+                depth++;
+                stackVertex[depth] = neighbor;
+                stackEdge[depth] = offsets[neighbor];
+            }
+        }
+        return false;
+    }
+
+    // Returns the distance (number of edges) from source to every vertex, indexed by vertex id, or -1 for
+    // vertices that can not be reached. All entries are -1 if source is not in the graph.
+    // Uses a parallel, direction-optimizing BFS, so whole-graph traversals use all cores.
+    public int[] parallelDistances(K source) {
+        int sourceId = indexOf(source);
+        if (sourceId < 0) {
+            int[] dist = new int[keys.length];
+            Arrays.fill(dist, -1);
+            return dist;
+        }
+        return ParallelBfs.distances(offsets, targets, sourceId, -1);
+    }
+
+    // Finds a shortest path between node from and node to with the parallel BFS, as an array of node names.
+    // Returns 0 length array if no path exists. The path is the same as the one BFS returns.
+    public K[] parallelBFS(K from, K to) {
+        int fromId = indexOf(from);
+        int toId = indexOf(to);
+        // If either from node or to node are not found in the graph, return empty array.
+        if (fromId < 0 || toId < 0) {
+            return newPath(from, 0);
+        }
+        int[] ids = ParallelBfs.path(offsets, targets, fromId, toId);
+        K[] pathNames = newPath(from, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            pathNames[i] = key(ids[i]);
+        }
+        return pathNames;
+    }
+
+    // Get the list of vertices in the graph, in sorted order.
+    List<Vertex<K, V>> getVertices() {
+        ArrayList<Vertex<K, V>> vertexList = new ArrayList<>(keys.length);
+        for (int id = 0; id < keys.length; id++) {
+            vertexList.add(new Vertex<>(key(id), data(id)));
+        }
+        return vertexList;
+    }
+
+    // Finds a vertex in the graph given name. Useful to get the data associated with name.
+    Vertex<K, V> findVertex(K name) {
+        int id = indexOf(name);
+        if (id < 0) {
+            return null;
+        }
+        return new Vertex<>(name, data(id));
+    }
+
+    // Returns the neighbors of the given vertex, in sorted order.
+    List<Vertex<K, V>> getNeighborsForNode(K name) {
+        int id = indexOf(name);
+        ArrayList<Vertex<K, V>> neighbors = new ArrayList<>();
+        if (id < 0) {
+            // Return empty list.
+            return neighbors;
+        }
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            neighbors.add(new Vertex<>(key(targets[e]), data(targets[e])));
+        }
+        return neighbors;
+    }
+
+    // Returns a mutable Graph with the same vertices and edges as this snapshot.
+    public Graph<K, V> thaw() {
+        return Graph.fromSortedCsr(keys, data, offsets, targets, weights);
+    }
+
+    // Writes the snapshot to the given file in a compact binary format. Vertex names and data must be
+    // Serializable.
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(keys.length).putInt(targets.length)
+                    .putInt(weights == null ? 0 : 1);
+            header.flip();
+            writeFully(channel, header);
+            writeInts(channel, offsets);
+            writeInts(channel, targets);
+            if (weights != null) {
+                writeInts(channel, weights);
+            }
+            // Do not close the object stream here, it would close the channel before the try block does.
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeObject(keys);
+            out.writeObject(data);
+            out.flush();
+        }
+    }
+
+    // Reads a snapshot written by save(). Throws IOException if the file is not a well formed graph file.
+    // The vertex names and data are deserialized with ObjectInputStream, which can run code of any
+    // Serializable class on the class path, so only load files from trusted sources. (On Java 9 and later,
+    // the classes allowed can be restricted with the jdk.serialFilter system property.)
+    public static <K extends Comparable<? super K>, V> FrozenGraph<K, V> load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Every graph file is longer than a header, whatever its version.
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Not a graph file: " + path);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported graph file version " + version + ": " + path);
+            }
+            int size = header.getInt();
+            int edgeCount = header.getInt();
+            boolean weighted = version != 1 && header.getInt() != 0;
+            long position = version == 1 ? VERSION_1_HEADER_BYTES : HEADER_BYTES;
+            // Check the counts against the file size before allocating anything for them.
+            long arrayBytes = 4L * (size + 1) + 4L * edgeCount * (weighted ? 2 : 1);
+            if (size < 0 || size == Integer.MAX_VALUE || edgeCount < 0
+                    || position + arrayBytes > channel.size()) {
+                throw new IOException("Corrupt graph file: " + path);
+            }
+            int[] offsets = new int[size + 1];
+            int[] targets = new int[edgeCount];
+            position = readInts(channel, position, offsets);
+            position = readInts(channel, position, targets);
+            int[] weights = null;
+            if (weighted) {
+                weights = new int[targets.length];
+                position = readInts(channel, position, weights);
+            }
+            if (!isValidCsr(offsets, targets, weights)) {
+                throw new IOException("Corrupt graph file: " + path);
+            }
+            channel.position(position);
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            try {
+                Object[] keys = (Object[]) in.readObject();
+                Object[] data = (Object[]) in.readObject();
+                if (keys.length != size || data.length != size || !isSorted(keys)) {
+                    throw new IOException("Corrupt graph file: " + path);
+                }
+                return new FrozenGraph<>(keys, data, offsets, targets, weights);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unknown vertex class in graph file: " + path, e);
+            } catch (ClassCastException e) {
+                throw new IOException("Corrupt graph file: " + path, e);
+            }
+        }
+    }
+
+    // Returns whether offsets start at 0, never decrease and end at the number of targets, every target is a
+    // vertex id, and no weight is negative. Searches rely on all of this without checking.
+    private static boolean isValidCsr(int[] offsets, int[] targets, int[] weights) {
+        int size = offsets.length - 1;
+        if (offsets[0] != 0 || offsets[size] != targets.length) {
+            return false;
+        }
+        for (int id = 0; id < size; id++) {
+            if (offsets[id] > offsets[id + 1]) {
+                return false;
+            }
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= size) {
+                return false;
+            }
+        }
+        if (weights != null) {
+            for (int weight : weights) {
+                if (weight < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Returns whether the keys are non-null and Comparable, and in strictly increasing order, as indexOf needs.
+    // Throws ClassCastException if two keys can not be compared with each other.
+    @SuppressWarnings("unchecked")
+    private static boolean isSorted(Object[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            if (!(keys[i] instanceof Comparable)) {
+                return false;
+            }
+            if (i > 0 && ((Comparable<Object>) keys[i - 1]).compareTo(keys[i]) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Writes the ints of the array to the channel, one block at a time.
+    private static void writeInts(FileChannel channel, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(values.length, IO_BLOCK_INTS) * 4);
+        for (int start = 0; start < values.length; start += IO_BLOCK_INTS) {
+            int count = Math.min(IO_BLOCK_INTS, values.length - start);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, start, count);
+            buffer.limit(count * 4);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Fills the array with ints read from the channel at the given position, by mapping the file one block
+    // at a time and bulk copying. Returns the position just after the ints.
+    private static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+        if (position + values.length * 4L > channel.size()) {
+            throw new IOException("Truncated graph file");
+        }
+        for (int start = 0; start < values.length; start += IO_BLOCK_INTS) {
+            int count = Math.min(IO_BLOCK_INTS, values.length - start);
+            ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L);
+            block.asIntBuffer().get(values, start, count);
+            position += count * 4L;
+        }
+        return position;
+    }
+
+    // Writes the path from source (fromId) to destination (toId) to path as node names, following the
+    // parent links recorded during the search.
+    private void constructPath(int fromId, int toId, SearchState state, PathBuffer<K> path) {
+        int length = 1;
+        for (int v = toId; v != fromId; v = state.parent(v)) {
+            length++;
+        }
+        path.setSize(length);
+        // Fill in from the destination backwards to get source to destination.
+        int index = length - 1;
+        for (int v = toId; v != fromId; v = state.parent(v)) {
+            path.set(index--, key(v));
+        }
+        path.set(0, key(fromId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private K[] newPath(K from, int length) {
+        return (K[]) Array.newInstance(from.getClass(), length);
+    }
+}
@@ -1,12 +1,28 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.lang.reflect.Array;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // Implements an undirected, unweighted graph.
+// Searches keep their state per query (see SearchState), so any number of threads may run BFS, DFS and
+// lookups on the same graph at once. Changes to the graph must not run concurrently with anything else.
 public class Graph<K extends Comparable<? super K>, V> {
 
     // Represents a node in the graph.
@@ -14,22 +30,23 @@ public class Graph<K extends Comparable<? super K>, V> {
         // Name and data associated with the graph node.
         Vertex<K, V> vertex;
 
+        // Position of this node in adjList.
+        private int id;
+
+        // Whether the node was removed but is still in adjList (a tombstone), waiting for compaction.
+        private boolean removed;
+
         // List of nodes which are connected to this node via a direct edge.
         private ArrayList<Node> neighbors;
 
-        // Visited marker, used in Depth first and Breadth first searches to avoid
-        // processing already visited nodes.
-        private boolean visited;
-
-        // Used to maintain the link to the parent node, during DFS or BFS.
-        private Node searchParent;
+        // weights[i] is the weight of the edge to neighbors.get(i). Null as long as all edges of this node have
+        // weight 1, so unweighted graphs take no extra memory. May be longer than the neighbor list.
+        private int[] weights;
 
         // Constructs an empty graph.
         public Node(K name, V data) {
             vertex = new Vertex<>(name, data);
             neighbors = new ArrayList<>();
-            visited = false;
-            searchParent = null;
         }
 
         // Getters and Setters.
@@ -49,77 +66,237 @@ public class Graph<K extends Comparable<? super K>, V> {
             return neighbors;
         }
 
-        public boolean isVisited() {
-            return visited;
+        // Returns the weight of the edge to the neighbor at the given position.
+        int weight(int index) {
+            return weights == null ? 1 : weights[index];
         }
 
-        public void setVisited(boolean visited) {
-            this.visited = visited;
+        // Inserts an edge to node with the given weight at the given position of the neighbor list.
+        void insertNeighbor(int index, Node node, int weight) {
+            int size = neighbors.size();
+            neighbors.add(index, node);
+            if (weights == null) {
+                if (weight == 1) {
+                    return;
+                }
+                weights = new int[Math.max(4, size + 1)];
+                Arrays.fill(weights, 1);
+            } else if (size == weights.length) {
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            weights[index] = weight;
         }
 
-        public Node getSearchParent() {
-            return searchParent;
+        // Removes the edge at the given position of the neighbor list.
+        void removeNeighbor(int index) {
+            neighbors.remove(index);
+            if (weights != null) {
+                System.arraycopy(weights, index + 1, weights, index, neighbors.size() - index);
+            }
         }
 
-        public void setSearchParent(Node searchParent) {
-            this.searchParent = searchParent;
+        // Removes the edges to tombstones, in one pass over the neighbor list.
+        void removeTombstones() {
+            int kept = 0;
+            for (int i = 0; i < neighbors.size(); i++) {
+                Node neighbor = neighbors.get(i);
+                if (!neighbor.removed) {
+                    neighbors.set(kept, neighbor);
+                    if (weights != null) {
+                        weights[kept] = weights[i];
+                    }
+                    kept++;
+                }
+            }
+            neighbors.subList(kept, neighbors.size()).clear();
         }
     }
 
-    // Class to hold a value and a boolean indicating success.
-    // Used to return both of these together from a method.
-    private class Tuple<T> {
-        private T value;
-        private boolean success;
+    // Weighted searches use a BucketQueue instead of a binary heap as long as no edge weighs more than this.
+    private static final int BUCKET_QUEUE_MAX_WEIGHT = 64;
 
-        public Tuple(T value, boolean success) {
-            this.value = value;
-            this.success = success;
-        }
+    // Adjacency List representation of the graph. Nodes are kept in no particular order; each node
+    // knows its own position (id) in the list, so it can be removed without searching. Removed nodes may
+    // stay in the list as tombstones until the next compaction (see setCompactionThreshold).
+    private ArrayList<Node> adjList;
 
-        public T getValue() {
-            return value;
-        }
+    // Index from node name to node, giving amortized O(1) lookup and insertion.
+    private HashMap<K, Node> nodeIndex;
 
-        public boolean isSuccess() {
-            return success;
-        }
+    // The nodes of adjList in sorted order of name, for printing the graph and listing its vertices.
+    // Built on demand, and dropped (set to null) whenever a node is added or removed. Volatile, since
+    // concurrent readers may build it.
+    private volatile ArrayList<Node> sortedNodes;
+
+    // Number of changes made to the nodes and edges of the graph. Anything derived from the graph, such as
+    // cached paths, is valid only as long as this count stays the same.
+    private int modCount;
+
+    // Cache of recent path query results, or null if caching is off.
+    private PathCache<K> pathCache;
+
+    // Receives statistics of queries, or null if nobody is listening.
+    private volatile GraphListener listener;
+
+    // Connected components of the graph, by node id, used to reject queries between nodes that are not
+    // connected without searching. Kept up to date as nodes and edges are added. Removing a node may split
+    // a component, so it sets this to null, and the index is rebuilt the next time it is needed.
+    private volatile ComponentIndex components;
+
+    // Landmark distance tables set up by precomputeLandmarks, or null. Only used while they are valid for
+    // the current modCount.
+    private volatile Landmarks landmarks;
+
+    // Snapshot of the graph taken by parallelBFS, or null. Only used while it is valid for the current
+    // modCount.
+    private volatile Snapshot<K, V> snapshot;
+
+    // Number of tombstones in adjList.
+    private int tombstones;
+
+    // Fraction of the nodes in adjList that may be tombstones before a removal compacts the graph, or 0 if
+    // removed nodes are unlinked from their neighbors right away.
+    private double compactionThreshold;
+
+    // Largest weight of any edge added so far (1 for unweighted edges), or 0 if there are none.
+    private int maxWeight;
+
+    // Constructs an empty graph.
+    public Graph() {
+        adjList = new ArrayList<>();
+        nodeIndex = new HashMap<>();
+        sortedNodes = null;
+        modCount = 0;
+        pathCache = null;
+        components = new ComponentIndex(0);
     }
 
-    // Queue of nodes for use in Breadth First Search.
-    private class NodeQueue {
-        // list to store elements in the queue.
-        private LinkedList<Node> nodes;
+    // Turns on caching of BFS, DFS and bidirectionalBFS results, keeping at most capacity paths. Replaces
+    // any existing cache. Cached paths are dropped whenever nodes or edges are added or removed.
+    public void enablePathCache(int capacity) {
+        pathCache = new PathCache<>(capacity);
+    }
 
-        NodeQueue() {
-           nodes = new LinkedList<>();
-        }
+    // Turns off path caching.
+    public void disablePathCache() {
+        pathCache = null;
+    }
+
+    // Returns the path cache, for its hit and miss counts, or null if caching is off.
+    public PathCache<K> getPathCache() {
+        return pathCache;
+    }
+
+    // Sets the listener that receives statistics of every query, or turns statistics off if null.
+    public void setListener(GraphListener listener) {
+        this.listener = listener;
+    }
 
-        // Add node to the end of the queue.
-        public void enqueue(Node node) {
-            nodes.addLast(node);
+    // Returns the listener, or null if there is none.
+    public GraphListener getListener() {
+        return listener;
+    }
+
+    // A frozen copy of the graph, and the modCount it was taken at.
+    private static final class Snapshot<K extends Comparable<? super K>, V> {
+        final FrozenGraph<K, V> graph;
+        final int modCount;
+
+        Snapshot(FrozenGraph<K, V> graph, int modCount) {
+            this.graph = graph;
+            this.modCount = modCount;
         }
+    }
 
-        // Removed and returns node from the front of the queue.
-        public Node dequeue() {
-            if (nodes.isEmpty()) {
-                return null;
+    // A path search, which writes the path it finds to path (empty if there is none), and counts its work in
+    // stats unless stats is null.
+    private interface PathSearch<K> {
+        void search(K from, K to, PathBuffer<K> path, QueryStats stats);
+    }
+
+    // The searches behind BFS, DFS, bidirectionalBFS and shortestWeightedPath, created once so that queries do
+    // not allocate them.
+    private final PathSearch<K> bfs = this::bfsSearch;
+    private final PathSearch<K> dfs = this::dfsSearch;
+    private final PathSearch<K> bidirectional = this::bidirectionalSearch;
+    private final PathSearch<K> dijkstra = this::dijkstraSearch;
+
+    // Runs a path query with the given search, and returns the path as a new array.
+    private K[] runQuery(SearchAlgorithm algorithm, boolean cacheable, K from, K to, PathSearch<K> search) {
+        return runQuery(algorithm, cacheable, from, to, search, null);
+    }
+
+    // Runs a path query with the given search. Answers it from the path cache if cacheable and possible,
+    // otherwise runs the search (and caches the result if cacheable). Reports the query to the listener.
+    // If buffer is null, the search writes to this thread's pooled buffer and the path is returned as a new
+    // array. Otherwise the path is written to buffer, and an array is only made if the cache needs one.
+    private K[] runQuery(SearchAlgorithm algorithm, boolean cacheable, K from, K to, PathSearch<K> search,
+                         PathBuffer<K> buffer) {
+        GraphListener currentListener = listener;
+        QueryStats stats = null;
+        long start = 0;
+        if (currentListener != null) {
+            stats = new QueryStats(algorithm);
+            start = System.nanoTime();
+        }
+        PathCache<K> cache = cacheable ? pathCache : null;
+        int version = modCount;
+        K[] path = cache == null ? null : cache.get(from, to, algorithm, version);
+        int length;
+        if (path != null) {
+            if (stats != null) {
+                stats.setCacheHit();
+            }
+            if (buffer != null) {
+                buffer.set(path);
+            }
+            length = path.length;
+        } else {
+            PathBuffer<K> target = buffer == null ? PathBuffer.local() : buffer;
+            search.search(from, to, target, stats);
+            length = target.size();
+            if (buffer == null || cache != null) {
+                path = target.toArray(from);
+            }
+            if (buffer == null) {
+                // Do not keep the names alive in the pooled buffer.
+                target.clear();
+            }
+            if (cache != null) {
+                cache.put(from, to, algorithm, version, path);
             }
-            return nodes.removeFirst();
         }
-
-        // Returns whether the queue is empty.
-        public boolean isEmpty() {
-            return nodes.isEmpty();
+        if (currentListener != null) {
+            stats.finish(length, System.nanoTime() - start);
+            currentListener.onQuery(stats);
         }
+        return path;
     }
 
-    // Adjacency List representation of the graph.
-    private ArrayList<Node> adjList;
+    // Returns this thread's search state, ready for a new search, and adds the time that took to stats.
+    private SearchState acquireState(QueryStats stats, boolean secondary) {
+        long start = stats == null ? 0 : System.nanoTime();
+        SearchState state = secondary ? SearchState.acquireSecondary(adjList.size())
+                : SearchState.acquire(adjList.size());
+        if (stats != null) {
+            stats.addResetNanos(System.nanoTime() - start);
+        }
+        return state;
+    }
 
-    // Constructs an empty graph.
-    public Graph() {
-        adjList = new ArrayList<>();
+    // Reports a graph loaded from source in the given time to the listener, if any.
+    void reportLoad(String source, long nanos) {
+        GraphListener currentListener = listener;
+        if (currentListener != null) {
+            long edges = 0;
+            for (Node node : adjList) {
+                if (!node.removed) {
+                    edges += node.getNeighbors().size();
+                }
+            }
+            currentListener.onLoad(new LoadStats(source, nodeIndex.size(), edges / 2, nanos));
+        }
     }
 
     // Adds a new node with name and data to the graph. If duplicate found returns false.
@@ -127,58 +304,47 @@ public class Graph<K extends Comparable<? super K>, V> {
     // previously set for that node.
     public boolean addNode(K name, V data) {
         // Insert the new node into the graph. Return whether no duplicate was found (a new node was created).
-        return addNodeInternal(name, data).isSuccess();
-    }
-
-    // Returns a tuple containing the newly added or already present node, and a boolean
-    // indicating whether a node was newly added.
-    private Tuple<Node> addNodeInternal(K name, V data) {
-        // Find the position of the node in the graph if it already exists (duplicate) or
-        // get the position to insert the new node. We maintain the vertices in sorted order.
-        // Though it is not a requirement for graph functionality, sorted order enables us to
-        // search efficiently, and print the graph in the required sorted way.
-        // We use binary search.
-        Tuple<Integer> tup = findNodePosition(name);
-        // If found, we have a duplicate.
-        if (tup.isSuccess()) {
-            Node node = adjList.get(tup.getValue());
+        int size = nodeIndex.size();
+        addNodeInternal(name, data);
+        return nodeIndex.size() > size;
+    }
+
+    // Returns the newly added or already present node with the given name.
+    private Node addNodeInternal(K name, V data) {
+        // Look the node up in the hash index. If found, we have a duplicate.
+        Node node = nodeIndex.get(name);
+        if (node != null) {
             // Set node data if it was null.
             if (node.getData() == null) {
                 node.setData(data);
             }
-            // Return the node index, and false to indicate duplicate - no insertion done.
-            return new Tuple<Node>(node, false);
+            // Return the node, no insertion done.
+            return node;
         }
-        // Add the new node at index after moving the following elements by one position to make room.
+        // Append the new node to the end of the adjacency list, and index it by name.
         Node newNode = new Node(name, data);
-        adjList.add(tup.getValue(), newNode);
-        return new Tuple<Node>(newNode, true);
+        newNode.id = adjList.size();
+        adjList.add(newNode);
+        nodeIndex.put(name, newNode);
+        sortedNodes = null;
+        modCount++;
+        ComponentIndex index = components;
+        if (index != null) {
+            index.add();
+        }
+        return newNode;
     }
 
-    // Finds the position of the specified node in adjacency list of nodes.
-    // Returns the index of the node in the ArrayList and boolean true if node was found.
-    // Else returns the index at which node needs to be inserted to maintain sorted order,
-    // and boolean false indicating node was not found.
-    // Uses binary search.
-    private Tuple<Integer> findNodePosition(K name) {
-        int left = 0;
-        int right = adjList.size() - 1;
-        while (left <= right) {
-            int mid = (left + right) / 2;
-            int comp = adjList.get(mid).getName().compareTo(name);
-            // if we found a match, return the index of the node.
-            if (comp == 0) {
-                return new Tuple<Integer>(mid, true);
-            }
-            if (comp < 0) {
-                left = mid + 1;
-            } else {
-                right = mid - 1;
-            }
+    // Returns the nodes of the graph in sorted order of name. The sorted list is cached until the
+    // set of nodes changes, so repeated calls without changes in between cost nothing.
+    private ArrayList<Node> sortedNodes() {
+        ArrayList<Node> sorted = sortedNodes;
+        if (sorted == null) {
+            sorted = new ArrayList<>(nodeIndex.values());
+            sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+            sortedNodes = sorted;
         }
-        // We did not find the node, return the position to insert the new node (name)
-        // so that sorted order is maintained.
-        return new Tuple<Integer>(left, false);
+        return sorted;
     }
 
     // Adds all elements in the given array of vertices to the graph, skipping duplicates. Returns false if
@@ -198,8 +364,9 @@ public class Graph<K extends Comparable<? super K>, V> {
         return no_dups;
     }
 
-    // Adds an edge in one direction from fromNode to toNode. Returns false if duplicate is found.
-    private boolean addDirectedEdge(Node fromNode, Node toNode) {
+    // Adds an edge with the given weight in one direction from fromNode to toNode. Returns false if duplicate
+    // is found.
+    private boolean addDirectedEdge(Node fromNode, Node toNode, int weight) {
         // Check for a loop.
         if (fromNode.getName().equals(toNode.getName())) {
             return false;
@@ -209,6 +376,11 @@ public class Graph<K extends Comparable<? super K>, V> {
             Node curNode = fromNode.getNeighbors().get(index);
             int comp = curNode.getName().compareTo(toNode.getName());
             if (comp == 0) {
+                if (curNode.removed) {
+                    // Edge to a removed node of the same name, which toNode replaces. Drop it.
+                    fromNode.removeNeighbor(index);
+                    continue;
+                }
                 // Duplicate edge found.
                 return false;
             }
@@ -217,25 +389,142 @@ public class Graph<K extends Comparable<? super K>, V> {
             index++;
         }
         // Add the new node at index after moving the following elements by one position to make room.
-        fromNode.getNeighbors().add(index, toNode);
+        fromNode.insertNeighbor(index, toNode, weight);
+        modCount++;
         return true;
     }
 
     // Adds an undirected edge between "from" and "to".
     public boolean addEdge(K from, K to) {
+        return addEdge(from, to, 1);
+    }
+
+    // Adds an undirected edge with the given weight between "from" and "to", for shortestWeightedPath. Edges
+    // added without a weight weigh 1. Returns false if the edge already exists (its weight is not changed).
+    public boolean addEdge(K from, K to, int weight) throws IllegalArgumentException {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Edge weight should be non-negative: " + weight);
+        }
         // Add Nodes from and to if not present.
-        Tuple<Node> fromTuple = addNodeInternal(from, null);
-        Tuple<Node> toTuple = addNodeInternal(to, null);
+        Node fromNode = addNodeInternal(from, null);
+        Node toNode = addNodeInternal(to, null);
         // Add two edges, from -> to and to -> from.
-        if (!addDirectedEdge(fromTuple.getValue(), toTuple.getValue())) {
+        if (!addDirectedEdge(fromNode, toNode, weight)) {
             return false;
         }
-        return addDirectedEdge(toTuple.getValue(), fromTuple.getValue());
+        addDirectedEdge(toNode, fromNode, weight);
+        maxWeight = Math.max(maxWeight, weight);
+        // The two nodes are now in the same component.
+        ComponentIndex index = components;
+        if (index != null) {
+            index.union(fromNode.id, toNode.id);
+        }
+        return true;
+    }
+
+    // Returns whether there is a path between node a and node b. Returns false if either is not in the graph.
+    // Takes near constant time, except for the first call after nodes were removed, which rebuilds the
+    // component index in time linear in the size of the graph.
+    public boolean isConnected(K a, K b) {
+        Node nodeA = findNode(a);
+        Node nodeB = findNode(b);
+        return nodeA != null && nodeB != null && connected(nodeA, nodeB);
+    }
+
+    // Returns whether the two nodes are in the same connected component.
+    private boolean connected(Node a, Node b) {
+        return a == b || componentIndex().connected(a.id, b.id);
+    }
+
+    // Returns the component index, rebuilding it first if nodes were removed since it was last built.
+    private ComponentIndex componentIndex() {
+        ComponentIndex index = components;
+        if (index == null) {
+            synchronized (this) {
+                index = components;
+                if (index == null) {
+                    index = new ComponentIndex(adjList.size());
+                    for (Node node : adjList) {
+                        if (node.removed) {
+                            continue;
+                        }
+                        for (Node neighbor : node.getNeighbors()) {
+                            if (neighbor.id > node.id && !neighbor.removed) {
+                                index.union(node.id, neighbor.id);
+                            }
+                        }
+                    }
+                    components = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // Precomputes the distances from k landmark nodes to every node, so that estimateDistance can bound the
+    // distance between any two nodes without searching, and BFS and aStar can skip nodes that can not be
+    // on a shortest path. Landmarks are spread out over the graph (see Landmarks). Takes k Breadth First
+    // searches over the whole graph, and k ints of memory per node. Any later change to the graph makes
+    // the landmarks invalid until this is called again.
+    public void precomputeLandmarks(int k) {
+        landmarks = Landmarks.select(adjList.size(), k, modCount, id -> {
+            Node node = adjList.get(id);
+            return node.removed ? 0 : node.getNeighbors().size();
+        }, this::distancesFrom);
+    }
+
+    // Returns the landmarks, or null if they were not computed or the graph has changed since.
+    private Landmarks currentLandmarks() {
+        Landmarks current = landmarks;
+        return current != null && current.isValidFor(modCount) ? current : null;
+    }
+
+    // Returns lower and upper bounds on the number of edges on a shortest path between node a and node b,
+    // computed in time linear in the number of landmarks. Throws IllegalStateException if precomputeLandmarks
+    // was not called since the graph last changed. Nodes not in the graph can not be reached.
+    public DistanceEstimate estimateDistance(K a, K b) {
+        Landmarks current = currentLandmarks();
+        if (current == null) {
+            throw new IllegalStateException("Landmarks have not been computed since the graph last changed");
+        }
+        Node nodeA = findNode(a);
+        Node nodeB = findNode(b);
+        if (nodeA == null || nodeB == null || !connected(nodeA, nodeB)) {
+            return new DistanceEstimate(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        if (nodeA == nodeB) {
+            return new DistanceEstimate(0, 0);
+        }
+        // Distinct nodes are at least one edge apart.
+        int lower = Math.max(1, current.lowerBound(nodeA.id, nodeB.id));
+        return new DistanceEstimate(lower, current.upperBound(nodeA.id, nodeB.id));
+    }
+
+    // Returns the number of edges from the node with the given id to every node, by id, or -1 for nodes that
+    // can not be reached.
+    private int[] distancesFrom(int sourceId) {
+        int size = adjList.size();
+        int[] dist = new int[size];
+        Arrays.fill(dist, -1);
+        int[] queue = SearchState.acquire(size).queue;
+        int head = 0;
+        int tail = 0;
+        dist[sourceId] = 0;
+        queue[tail++] = sourceId;
+        while (head < tail) {
+            Node v = adjList.get(queue[head++]);
+            for (Node neighbor : v.getNeighbors()) {
+                if (dist[neighbor.id] < 0 && !neighbor.removed) {
+                    dist[neighbor.id] = dist[v.id] + 1;
+                    queue[tail++] = neighbor.id;
+                }
+            }
+        }
+        return dist;
     }
 
     // Adds undirected edges between "from" and all nodes in "toList".
     public boolean addEdges(K from, List<K> toList) {
-        // Tuple fromTuple = addNodeInternal(from, null);
         boolean result = true;
         // If any duplicate edge is found return result is set to false. But we don't return immediately,
         // continue to try and add the remaining edges given.
@@ -250,121 +539,344 @@ public class Graph<K extends Comparable<? super K>, V> {
     // Removes the given node from the graph, and returns true if successful.
     // Returns false if given node is not found in the graph.
     public boolean removeNode(K name) {
-        Tuple<Integer> tup = findNodePosition(name);
+        Node curNode = nodeIndex.remove(name);
         // If node not found in the graph, return.
-        if (!tup.isSuccess()) {
+        if (curNode == null) {
             return false;
         }
-        // Found the node, remove it from the list of vertices.
-        Node curNode = adjList.get(tup.getValue());
-        int index = tup.getValue();
-        adjList.remove(index);
+        if (compactionThreshold > 0) {
+            // Leave the node in place as a tombstone, and compact once there are enough of them.
+            markRemoved(curNode);
+            compactIfNeeded();
+            return true;
+        }
+        // Found the node, remove it from the list of vertices. Move the last node into its place,
+        // so that no other elements need to be shifted.
+        Node lastNode = adjList.remove(adjList.size() - 1);
+        if (lastNode != curNode) {
+            lastNode.id = curNode.id;
+            adjList.set(curNode.id, lastNode);
+        }
+        sortedNodes = null;
+        modCount++;
+        components = null;
         // Now we need to go to each of the neighbors of this node, and remove current node from
         // the list of neighbors of those nodes (so that no one is referencing this and graph is consistent).
+        // Neighbor lists are sorted by name, so the current node is found with binary search.
         for (Node neighbor : curNode.getNeighbors()) {
-            int edgeIndex = 0;
-            while (edgeIndex < neighbor.getNeighbors().size()) {
-                // Remove the current node from the neighbors list of neighbor node.
-                if (neighbor.getNeighbors().get(edgeIndex) == curNode) {
-                    neighbor.getNeighbors().remove(edgeIndex);
-                    break;
-                }
-                edgeIndex++;
-            }
+            neighbor.removeNeighbor(neighborIndex(neighbor, curNode));
         }
         return true;
     }
 
+    // Returns the position of the first entry in the sorted neighbor list of owner whose name is not less than
+    // the name of node, which is the position of node if the list contains it.
+    private int neighborIndex(Node owner, Node node) {
+        ArrayList<Node> neighbors = owner.getNeighbors();
+        int left = 0;
+        int right = neighbors.size();
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (neighbors.get(mid).getName().compareTo(node.getName()) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
     // Removes all nodes in nodeList from the graph.
     // Returns false if we did not find any of the given nodes in the graph, but we
     // scan all in the given list, and attempt to remove all.
+    // The nodes are first only marked as removed, and then unlinked from the graph all together by one
+    // compaction (or by a later one, if a compaction threshold is set), which takes one pass over the
+    // neighbor lists of their neighbors and one pass over the list of vertices, however many nodes are removed.
     public boolean removeNodes(List<K> nodeList) {
         boolean result = true;
         // If we don't succeed in removing a node in the given list, we set return result to false.
         // But we continue to scan the list, and try to remove all remaining nodes.
         for (K name : nodeList) {
-            if (!removeNode(name)) {
+            Node node = nodeIndex.remove(name);
+            if (node == null) {
                 result = false;
+            } else {
+                markRemoved(node);
             }
         }
+        if (compactionThreshold > 0) {
+            compactIfNeeded();
+        } else {
+            compact();
+        }
         return result;
     }
 
+    // Turns a node that was taken out of nodeIndex into a tombstone. Searches step over tombstones, and
+    // compact() unlinks them.
+    private void markRemoved(Node node) {
+        node.removed = true;
+        tombstones++;
+        sortedNodes = null;
+        modCount++;
+        components = null;
+    }
+
+    // Sets how removed nodes are unlinked from the graph. With a threshold of 0 (the default), removeNode
+    // unlinks the node from its neighbors right away, and removeNodes unlinks all of its nodes at the end.
+    // With a threshold above 0, removed nodes are only marked as removed (tombstones), which searches step
+    // over, and the graph is compacted once tombstones make up more than the given fraction of its nodes.
+    // This suits workloads that remove many nodes one at a time. Setting it to 0 compacts right away.
+    public void setCompactionThreshold(double threshold) {
+        if (!(threshold >= 0)) {
+            throw new IllegalArgumentException("Compaction threshold should not be negative: " + threshold);
+        }
+        compactionThreshold = threshold;
+        if (threshold == 0) {
+            compact();
+        } else {
+            compactIfNeeded();
+        }
+    }
+
+    // Returns the number of removed nodes not unlinked from the graph yet.
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+    // Compacts the graph if tombstones make up more than the compaction threshold.
+    private void compactIfNeeded() {
+        if (tombstones > compactionThreshold * adjList.size()) {
+            compact();
+        }
+    }
+
+    // Unlinks all tombstones from the graph. Each neighbor list that holds tombstones is filtered once, and
+    // the tombstones are dropped from adjList in one pass that moves the remaining nodes down and renumbers
+    // them.
+    public void compact() {
+        if (tombstones == 0) {
+            return;
+        }
+        // Every list holding a tombstone belongs to one of its neighbors, since edges are undirected.
+        BitSet filtered = new BitSet(adjList.size());
+        for (Node node : adjList) {
+            if (!node.removed) {
+                continue;
+            }
+            for (Node neighbor : node.getNeighbors()) {
+                if (!neighbor.removed && !filtered.get(neighbor.id)) {
+                    filtered.set(neighbor.id);
+                    neighbor.removeTombstones();
+                }
+            }
+        }
+        int live = 0;
+        for (int id = 0; id < adjList.size(); id++) {
+            Node node = adjList.get(id);
+            if (!node.removed) {
+                node.id = live;
+                adjList.set(live++, node);
+            }
+        }
+        adjList.subList(live, adjList.size()).clear();
+        tombstones = 0;
+        // Node ids have changed, so anything indexed by id is no longer valid.
+        modCount++;
+        components = null;
+    }
+
     // Prints the graph in adjacency list form.
     public void printGraph() {
-        for (Node node : adjList) {
+        for (Node node : sortedNodes()) {
             System.out.print(node.getName() );
             for (Node neighbor : node.getNeighbors()) {
-                System.out.print(" " + neighbor.getName());
+                if (!neighbor.removed) {
+                    System.out.print(" " + neighbor.getName());
+                }
             }
             System.out.println();
         }
     }
 
-    // Constructs a graph from the given text file (filename).
-    public static <V> Graph<String, V> read(String filename) throws IOException {
-        Graph<String, V> graph = new Graph<>();
-        // Open the file and start reading.
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            // Get each line from the file.
-            while ((line = br.readLine()) != null) {
-                // Split the line using space as the delimiter.
-                String[] nodeNames = line.split("\\s+");
-                if (nodeNames.length > 0) {
-                    // Get the start vertex.
-                    String node = nodeNames[0];
-                    ArrayList<String> neighbors = new ArrayList<>(nodeNames.length - 1);
-                    // Add all edges.
-                    for (int i = 1; i < nodeNames.length; i++) {
-                        neighbors.add(nodeNames[i]);
+    // Returns an immutable compressed sparse row snapshot of the graph, for read-only query workloads.
+    // Vertex ids in the snapshot are the positions of the vertices in sorted order of name.
+    // Later changes to this graph are not reflected in the snapshot. Edge weights are kept in the snapshot if
+    // any edge has a weight other than 1.
+    public FrozenGraph<K, V> freeze() {
+        ArrayList<Node> sorted = sortedNodes();
+        int size = sorted.size();
+        Object[] keys = new Object[size];
+        Object[] data = new Object[size];
+        int[] offsets = new int[size + 1];
+        // Map from node id (position in adjList) to position in sorted order.
+        int[] sortedPosition = new int[adjList.size()];
+        boolean weighted = false;
+        for (int i = 0; i < size; i++) {
+            Node node = sorted.get(i);
+            keys[i] = node.getName();
+            data[i] = node.getData();
+            offsets[i + 1] = offsets[i] + liveDegree(node);
+            sortedPosition[node.id] = i;
+            weighted |= node.weights != null;
+        }
+        int[] targets = new int[offsets[size]];
+        int[] weights = weighted ? new int[targets.length] : null;
+        int edge = 0;
+        for (Node node : sorted) {
+            ArrayList<Node> neighbors = node.getNeighbors();
+            for (int i = 0; i < neighbors.size(); i++) {
+                Node neighbor = neighbors.get(i);
+                if (!neighbor.removed) {
+                    if (weights != null) {
+                        weights[edge] = node.weight(i);
                     }
-                    // Add all the edges. This will create node also, if it does not already exist.
-                    graph.addEdges(node, neighbors);
+                    targets[edge++] = sortedPosition[neighbor.id];
                 }
             }
         }
-        return graph;
+        return new FrozenGraph<>(keys, data, offsets, targets, weights);
     }
 
-    // Clears the visited marker and parent pointer for all nodes in the graph, so that we are ready for
-    // doing another DFS or BFS pass.
-    private void clearSearchMarkers() {
-        for (Node node : adjList) {
-            node.setVisited(false);
-            node.setSearchParent(null);
+    // Returns the number of neighbors of node that are not tombstones.
+    private int liveDegree(Node node) {
+        int degree = node.getNeighbors().size();
+        if (tombstones > 0) {
+            for (Node neighbor : node.getNeighbors()) {
+                if (neighbor.removed) {
+                    degree--;
+                }
+            }
         }
+        return degree;
     }
 
-    // Finds a node in the graph, given name.
-    // Since the nodes are kept sorted, we use binary search for efficiency.
-    private Node findNode(K name) {
-        Tuple<Integer> tup = findNodePosition(name);
-        // Check if we found the required node.
-        if (tup.isSuccess()) {
-            return adjList.get(tup.getValue());
+    // Saves the graph to the given file in a compact binary format, which load() reads back without
+    // parsing. Vertex names and data must be Serializable.
+    public void save(Path path) throws IOException {
+        freeze().save(path);
+    }
+
+    // Loads a graph saved with save().
+    public static <K extends Comparable<? super K>, V> Graph<K, V> load(Path path) throws IOException {
+        FrozenGraph<K, V> frozen = FrozenGraph.load(path);
+        return frozen.thaw();
+    }
+
+    // Constructs an unweighted graph from compressed sparse row arrays, in the same layout as FrozenGraph uses.
+    static <K extends Comparable<? super K>, V> Graph<K, V> fromSortedCsr(Object[] keys, Object[] data,
+                                                                          int[] offsets, int[] targets) {
+        return fromSortedCsr(keys, data, offsets, targets, null);
+    }
+
+    // Constructs a graph from compressed sparse row arrays, in the same layout as FrozenGraph uses, with the
+    // given edge weights (null if all weights are 1).
+    // keys must be sorted and distinct, and the neighbors of each vertex sorted, distinct, symmetric and
+    // free of loops, as produced by GraphBuilder. Each neighbor list is created at its final size.
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>, V> Graph<K, V> fromSortedCsr(Object[] keys, Object[] data,
+                                                                          int[] offsets, int[] targets,
+                                                                          int[] weights) {
+        Graph<K, V> graph = new Graph<>();
+        int size = keys.length;
+        graph.adjList.ensureCapacity(size);
+        for (int id = 0; id < size; id++) {
+            Graph<K, V>.Node node = graph.new Node((K) keys[id], (V) data[id]);
+            node.id = id;
+            graph.adjList.add(node);
+            graph.nodeIndex.put(node.getName(), node);
+        }
+        for (int id = 0; id < size; id++) {
+            ArrayList<Graph<K, V>.Node> neighbors = graph.adjList.get(id).getNeighbors();
+            neighbors.ensureCapacity(offsets[id + 1] - offsets[id]);
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                neighbors.add(graph.adjList.get(targets[e]));
+            }
         }
-        // Graph.Node not found.
-        return null;
+        if (weights == null) {
+            graph.maxWeight = targets.length > 0 ? 1 : 0;
+        } else {
+            // Only nodes with an edge of weight other than 1 get a weights array, as with addEdge.
+            for (int id = 0; id < size; id++) {
+                boolean weighted = false;
+                for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                    weighted |= weights[e] != 1;
+                    graph.maxWeight = Math.max(graph.maxWeight, weights[e]);
+                }
+                if (weighted) {
+                    graph.adjList.get(id).weights = Arrays.copyOfRange(weights, offsets[id], offsets[id + 1]);
+                }
+            }
+        }
+        // The nodes were added in sorted order already. The component index is built when first needed.
+        graph.sortedNodes = new ArrayList<>(graph.adjList);
+        graph.components = null;
+        return graph;
+    }
+
+    // Constructs a graph from the given text file (filename).
+    // Each line holds a node name followed by the names of its neighbors, separated by whitespace.
+    // The file is memory-mapped and parsed in parallel by GraphLoader.
+    public static <V> Graph<String, V> read(String filename) throws IOException {
+        return GraphLoader.readAdjacencyList(filename);
+    }
+
+    // Same as read(filename), but reports the load time and size of the graph to listener, and sets it as the
+    // graph's listener for later queries.
+    public static <V> Graph<String, V> read(String filename, GraphListener listener) throws IOException {
+        long start = System.nanoTime();
+        Graph<String, V> graph = read(filename);
+        graph.setListener(listener);
+        graph.reportLoad(filename, System.nanoTime() - start);
+        return graph;
     }
 
-    // Recursive Depth First Search.
-    private boolean DfsInternal(Node start, Node dest) {
-        start.setVisited(true);
-        for (Node neighbor : start.getNeighbors()) {
+    // Finds a node in the graph, given name. Returns null if not found.
+    private Node findNode(K name) {
+        return nodeIndex.get(name);
+    }
+
+    // Depth First Search from start until dest is reached. Visits nodes in the same order as a recursive
+    // search would, but keeps the path from start in an explicit stack (of node ids, with the position of
+    // the next neighbor to look at for each), so the depth is not limited by the call stack.
+    // Visited marks and parent links are kept in the per-query state.
+    private boolean DfsInternal(Node start, Node dest, SearchState state, QueryStats stats) {
+        int[] stackNode = state.queue;
+        int[] stackNext = state.cursor;
+        int depth = 0;
+        stackNode[0] = start.id;
+        stackNext[0] = 0;
+        if (stats != null) {
+            stats.expand(start.getNeighbors().size(), 1);
+        }
+        while (depth >= 0) {
+            Node v = adjList.get(stackNode[depth]);
+            int next = stackNext[depth];
+            if (next == v.getNeighbors().size()) {
+                // All neighbors done, backtrack.
+                depth--;
+                continue;
+            }
+            stackNext[depth] = next + 1;
+            Node neighbor = v.getNeighbors().get(next);
+            if (neighbor.removed) {
+                continue;
+            }
             // Check if we reached the destination.
             if (neighbor == dest) {
-                neighbor.setSearchParent(start);
+                state.setParent(neighbor.id, v.id);
                 // Return as we reached the destination.
                 return true;
             }
-            // If neighbor not visited, recurse depth first looking for dest.
-            if (!neighbor.isVisited()) {
+            // If neighbor not visited, continue depth first from it looking for dest.
+            if (!state.isVisited(neighbor.id)) {
                 // Maintain the parent link to construct the path in the end.
-                neighbor.setSearchParent(start);
-                if (DfsInternal(neighbor, dest)) {
-                    // Return as we reached the destination.
-                    return true;
+                state.visit(neighbor.id, v.id);
+                depth++;
+                stackNode[depth] = neighbor.id;
+                stackNext[depth] = 0;
+                if (stats != null) {
+                    stats.expand(neighbor.getNeighbors().size(), depth + 1);
                 }
             }
         }
@@ -374,96 +886,840 @@ public class Graph<K extends Comparable<? super K>, V> {
     // Finds a path between node from and node to using Depth First search, as an array of node names.
     // Returns 0 length array if no path exists.
     public K[] DFS(K from, K to) {
-        // Clear visited markers and parent pointers on each node.
-        clearSearchMarkers();
+        return runQuery(SearchAlgorithm.DFS, true, from, to, dfs);
+    }
+
+    // Same as DFS(from, to), but writes the path to the given buffer (see BFS(K, K, PathBuffer)).
+    public boolean DFS(K from, K to, PathBuffer<K> path) {
+        runQuery(SearchAlgorithm.DFS, true, from, to, dfs, path);
+        return !path.isEmpty();
+    }
+
+    private void dfsSearch(K from, K to, PathBuffer<K> path, QueryStats stats) {
         Node fromNode = findNode(from);
         Node toNode = findNode(to);
-        // If either from node or to node are not found in the graph, return empty array.
+        if (isTrivialQuery(fromNode, toNode, path)) {
+            return;
+        }
+        // Get this thread's search state, with no vertex visited yet.
+        SearchState state = acquireState(stats, false);
+        state.visit(fromNode.id, -1);
+        // Do depth first search till we hit toNode. Leave the path empty if we did not find one.
+        if (DfsInternal(fromNode, toNode, state, stats)) {
+            constructPath(fromNode, toNode, state, path);
+        }
+    }
+
+    // Handles the queries that need no search. Returns true, with the path written to path, if either node is
+    // not in the graph, the nodes are the same, or they are in different components. Otherwise returns false,
+    // with path empty.
+    private boolean isTrivialQuery(Node fromNode, Node toNode, PathBuffer<K> path) {
+        path.clear();
+        // If either from node or to node are not found in the graph, there is no path.
         if (fromNode == null || toNode == null) {
-            return (K[]) Array.newInstance(from.getClass(), 0);
+            return true;
         }
-        // If from and to are the same, return an array with one node.
+        // If from and to are the same, the path has one node.
         if (fromNode == toNode) {
-            K[] ret = (K[]) Array.newInstance(from.getClass(), 1);
-            ret[0] = from;
-            return ret;
-        }
-        // Do depth first search till we hit toNode. Return 0 length array if we did not find a path.
-        if (!DfsInternal(fromNode, toNode)) {
-            return (K[]) Array.newInstance(from.getClass(), 0);
-        }
-        return constructPath(from, toNode);
-    }
-
-    // Returns the path from source to destination (toNode) as an array of node names.
-    private K[] constructPath(K from, Node toNode) {
-        // Construct the path from destination to source.
-        // Parent links are maintained with the node, during DFS and BFS.
-        ArrayList<Node> pathList = new ArrayList<>();
-        Node curNode = toNode;
-        while (curNode != null) {
-            pathList.add(curNode);
-            curNode = curNode.getSearchParent();
-        }
-        K[] pathNames = (K[]) Array.newInstance(from.getClass(), pathList.size());
-        // Copy from pathList in reverse order to get source to destination.
-        int index = pathList.size() - 1;
-        for (Node node : pathList) {
-            pathNames[index] = node.getName();
+            path.add(fromNode.getName());
+            return true;
+        }
+        // If from and to are in different components, there is no path, and no need to search.
+        return !connected(fromNode, toNode);
+    }
+
+    // Writes the path from source (fromNode) to destination (toNode) to path, as node names.
+    private void constructPath(Node fromNode, Node toNode, SearchState state, PathBuffer<K> path) {
+        // Parent links are maintained in the search state, during DFS and BFS.
+        // Count the nodes on the path first, then fill it in from destination back to source.
+        int length = 1;
+        for (int id = toNode.id; id != fromNode.id; id = state.parent(id)) {
+            length++;
+        }
+        path.setSize(length);
+        int index = length - 1;
+        for (int id = toNode.id; id != fromNode.id; id = state.parent(id)) {
+            path.set(index, adjList.get(id).getName());
             index--;
         }
-        return pathNames;
+        path.set(0, fromNode.getName());
     }
 
     // Finds a path between node from and node to using Breadth First search, as an array of node names.
     // Returns 0 length array if no path exists.
     public K[] BFS(K from, K to) {
-        // Clear visited markers and parent pointers on each node.
-        clearSearchMarkers();
+        return runQuery(SearchAlgorithm.BFS, true, from, to, bfs);
+    }
+
+    // Same as BFS(from, to), but writes the path to the given buffer instead of returning a new array, and
+    // returns whether a path was found. Search state comes from per-thread pools, so once the buffer has
+    // grown to fit the paths, a query allocates nothing (while the path cache and the listener are off), and
+    // a query loop that reuses one buffer leaves no garbage to collect.
+    public boolean BFS(K from, K to, PathBuffer<K> path) {
+        runQuery(SearchAlgorithm.BFS, true, from, to, bfs, path);
+        return !path.isEmpty();
+    }
+
+    // Finds the same path as BFS(from, to), with a parallel, direction-optimizing BFS that uses all cores
+    // (see ParallelBfs). Meant for long paths on large graphs, where the search reaches most of the graph.
+    // Searches a snapshot of the graph (see freeze), which is taken by the first query after each change: that
+    // query pays O(V + E) to copy the graph, so this is meant for graphs that are queried many times between
+    // changes. On graphs that change between most queries, BFS is faster.
+    public K[] parallelBFS(K from, K to) {
+        return runQuery(SearchAlgorithm.BFS, true, from, to, (start, end, path, stats) -> {
+            if (!isTrivialQuery(findNode(start), findNode(end), path)) {
+                path.set(currentSnapshot().parallelBFS(start, end));
+            }
+        });
+    }
+
+    // Returns a snapshot of the graph as it is now, taking a new one if the graph has changed since the last.
+    private FrozenGraph<K, V> currentSnapshot() {
+        Snapshot<K, V> current = snapshot;
+        int version = modCount;
+        if (current == null || current.modCount != version) {
+            current = new Snapshot<>(freeze(), version);
+            snapshot = current;
+        }
+        return current.graph;
+    }
+
+    private void bfsSearch(K from, K to, PathBuffer<K> path, QueryStats stats) {
         Node fromNode = findNode(from);
         Node toNode = findNode(to);
-        // If either from node or to node are not found in the graph, return empty array.
-        if (fromNode == null || toNode == null) {
-            return (K[]) Array.newInstance(from.getClass(), 0);
-        }
-        // If from and to are the same, return an array with one node.
-        if (fromNode == toNode) {
-            K[] ret = (K[]) Array.newInstance(from.getClass(), 1);
-            ret[0] = from;
-            return ret;
+        if (isTrivialQuery(fromNode, toNode, path)) {
+            return;
         }
-        NodeQueue queue = new NodeQueue();
-        fromNode.setVisited(true);
-        queue.enqueue(fromNode);
+        // Get this thread's search state, with no vertex visited yet. Each node enters the queue at most
+        // once, so the queue is a plain array of node ids with head and tail indexes.
+        SearchState state = acquireState(stats, false);
+        int[] queue = state.queue;
+        int[] depth = state.distance;
+        int head = 0;
+        int tail = 0;
+        state.visit(fromNode.id, -1);
+        depth[fromNode.id] = 0;
+        queue[tail++] = fromNode.id;
+        // With landmarks, a node whose depth plus its least possible distance to the destination exceeds the
+        // longest possible distance from source to destination is not on any shortest path, so it is not
+        // expanded. Nodes on shortest paths are never skipped, so the path found is the same as without.
+        Landmarks bounds = currentLandmarks();
+        int limit = bounds == null ? Integer.MAX_VALUE : bounds.upperBound(fromNode.id, toNode.id);
         boolean found = false;
-        while(!found && !queue.isEmpty()) {
-            Node v = queue.dequeue();
+        while (!found && head < tail) {
+            Node v = adjList.get(queue[head++]);
+            if (stats != null) {
+                stats.expand(v.getNeighbors().size(), tail - head + 1);
+            }
             for (Node neighbor : v.getNeighbors()) {
+                if (neighbor.removed) {
+                    continue;
+                }
                 // Check if we found the destination node.
                 if (neighbor == toNode) {
-                    neighbor.setSearchParent(v);
+                    state.setParent(neighbor.id, v.id);
                     found = true;
                     break;
                 }
                 // Continue breadth first search, insert neighbor into the queue if not visited before.
-                if (!neighbor.isVisited()) {
-                    neighbor.setVisited(true);
+                if (!state.isVisited(neighbor.id)) {
                     // Maintain the parent link to construct the path in the end.
-                    neighbor.setSearchParent(v);
-                    queue.enqueue(neighbor);
+                    state.visit(neighbor.id, v.id);
+                    depth[neighbor.id] = depth[v.id] + 1;
+                    if (limit != Integer.MAX_VALUE
+                            && (long) depth[neighbor.id] + bounds.lowerBound(neighbor.id, toNode.id) > limit) {
+                        continue;
+                    }
+                    queue[tail++] = neighbor.id;
+                }
+            }
+        }
+        if (found) {
+            constructPath(fromNode, toNode, state, path);
+        }
+    }
+
+    // Finds a shortest path between node from and node to, as an array of node names, by searching from both
+    // ends at once until the two searches meet. Returns 0 length array if no path exists.
+    // Each step expands one whole level of whichever side has the smaller frontier, so on graphs with many
+    // neighbors per node far fewer nodes are visited than by BFS. When several shortest paths exist, the
+    // one returned may differ from the one BFS returns.
+    public K[] bidirectionalBFS(K from, K to) {
+        return runQuery(SearchAlgorithm.BIDIRECTIONAL_BFS, true, from, to, bidirectional);
+    }
+
+    // Same as bidirectionalBFS(from, to), but writes the path to the given buffer (see BFS(K, K, PathBuffer)).
+    public boolean bidirectionalBFS(K from, K to, PathBuffer<K> path) {
+        runQuery(SearchAlgorithm.BIDIRECTIONAL_BFS, true, from, to, bidirectional, path);
+        return !path.isEmpty();
+    }
+
+    private void bidirectionalSearch(K from, K to, PathBuffer<K> path, QueryStats stats) {
+        Node fromNode = findNode(from);
+        Node toNode = findNode(to);
+        if (isTrivialQuery(fromNode, toNode, path)) {
+            return;
+        }
+        SearchState forward = acquireState(stats, false);
+        SearchState backward = acquireState(stats, true);
+        forward.visit(fromNode.id, -1);
+        forward.queue[forward.tail++] = fromNode.id;
+        backward.visit(toNode.id, -1);
+        backward.queue[backward.tail++] = toNode.id;
+        int meet = -1;
+        // Stop when the searches meet, or when either side runs out of nodes (no path).
+        while (meet < 0 && forward.head < forward.tail && backward.head < backward.tail) {
+            if (forward.tail - forward.head <= backward.tail - backward.head) {
+                meet = expandLevel(forward, backward, stats);
+            } else {
+                meet = expandLevel(backward, forward, stats);
+            }
+        }
+        if (meet < 0) {
+            return;
+        }
+        // The path is the forward parent chain from the meeting node back to from, followed by the backward
+        // parent chain from the meeting node on to to.
+        int forwardLength = 0;
+        for (int id = meet; id >= 0; id = forward.parent(id)) {
+            forwardLength++;
+        }
+        int length = forwardLength;
+        for (int id = backward.parent(meet); id >= 0; id = backward.parent(id)) {
+            length++;
+        }
+        path.setSize(length);
+        int index = forwardLength - 1;
+        for (int id = meet; id >= 0; id = forward.parent(id)) {
+            path.set(index--, adjList.get(id).getName());
+        }
+        index = forwardLength;
+        for (int id = backward.parent(meet); id >= 0; id = backward.parent(id)) {
+            path.set(index++, adjList.get(id).getName());
+        }
+    }
+
+    // Expands all nodes of the current level of one side of a bidirectional search. Returns the id of the
+    // first node found that the other side has visited too, or -1 if there is none.
+    private int expandLevel(SearchState side, SearchState other, QueryStats stats) {
+        int[] queue = side.queue;
+        int levelEnd = side.tail;
+        while (side.head < levelEnd) {
+            Node v = adjList.get(queue[side.head++]);
+            if (stats != null) {
+                stats.expand(v.getNeighbors().size(), side.tail - side.head + 1 + other.tail - other.head);
+            }
+            for (Node neighbor : v.getNeighbors()) {
+                if (side.isVisited(neighbor.id) || neighbor.removed) {
+                    continue;
+                }
+                side.visit(neighbor.id, v.id);
+                if (other.isVisited(neighbor.id)) {
+                    return neighbor.id;
+                }
+                queue[side.tail++] = neighbor.id;
+            }
+        }
+        return -1;
+    }
+
+    // Finds a shortest path between node from and node to using A* search, as an array of node names.
+    // Returns 0 length array if no path exists.
+    // heuristic(data of a node, data of node to) estimates the number of edges on a path from that node to
+    // node to. Nodes are expanded in order of their distance from node from plus this estimate, so a good
+    // estimate leads the search straight to the destination, expanding far fewer nodes than BFS. The path
+    // is a shortest path as long as the estimate never exceeds the true distance. When several shortest
+    // paths exist, the one returned may differ from the one BFS returns.
+    // A node without data, or a destination without data, gets an estimate of 0, and heuristic is not called.
+    public K[] aStar(K from, K to, ToIntBiFunction<V, V> heuristic) {
+        Node toNode = findNode(to);
+        V target = toNode == null ? null : toNode.getData();
+        IntUnaryOperator estimate = id -> {
+            V data = adjList.get(id).getData();
+            return data == null || target == null ? 0 : heuristic.applyAsInt(data, target);
+        };
+        return runQuery(SearchAlgorithm.A_STAR, false, from, to,
+                (start, end, path, stats) -> aStarSearch(start, toNode, estimate, path, stats));
+    }
+
+    // Finds a shortest path between node from and node to using A* search guided by the landmark distances
+    // (the ALT technique), as an array of node names. Returns 0 length array if no path exists.
+    // The estimate for each node is its lower bound on the distance to node to, which never overestimates,
+    // so the path is always a shortest path. Without valid landmarks (see precomputeLandmarks) the estimate
+    // is 0, and the search expands nodes in the same order as BFS.
+    public K[] aStar(K from, K to) {
+        Node toNode = findNode(to);
+        Landmarks bounds = currentLandmarks();
+        IntUnaryOperator estimate;
+        if (bounds == null || toNode == null) {
+            estimate = id -> 0;
+        } else {
+            int toId = toNode.id;
+            estimate = id -> bounds.lowerBound(id, toId);
+        }
+        return runQuery(SearchAlgorithm.A_STAR, false, from, to,
+                (start, end, path, stats) -> aStarSearch(start, toNode, estimate, path, stats));
+    }
+
+    // Runs A* search from node from to toNode (null if not in the graph), with estimate giving the estimated
+    // number of edges from each node id to toNode.
+    private void aStarSearch(K from, Node toNode, IntUnaryOperator estimate, PathBuffer<K> path, QueryStats stats) {
+        Node fromNode = findNode(from);
+        if (isTrivialQuery(fromNode, toNode, path)) {
+            return;
+        }
+        SearchState state = acquireState(stats, false);
+        IndexedMinHeap open = state.heap(adjList.size());
+        int[] distance = state.distance;
+        // With landmarks, nodes whose estimated path length exceeds the longest possible distance from source
+        // to destination can not be on a shortest path, and are never queued.
+        Landmarks bounds = currentLandmarks();
+        int limit = bounds == null ? Integer.MAX_VALUE : bounds.upperBound(fromNode.id, toNode.id);
+        try {
+            state.visit(fromNode.id, -1);
+            distance[fromNode.id] = 0;
+            open.offer(fromNode.id, aStarPriority(estimate.applyAsInt(fromNode.id), 0));
+            while (!open.isEmpty()) {
+                int id = open.poll();
+                // The destination is done once it leaves the queue, not when it is first reached.
+                if (id == toNode.id) {
+                    constructPath(fromNode, toNode, state, path);
+                    return;
+                }
+                int next = distance[id] + 1;
+                Node v = adjList.get(id);
+                if (stats != null) {
+                    stats.expand(v.getNeighbors().size(), open.size() + 1);
+                }
+                for (Node neighbor : v.getNeighbors()) {
+                    if (neighbor.removed || state.isVisited(neighbor.id) && distance[neighbor.id] <= next) {
+                        continue;
+                    }
+                    // First path to neighbor, or a shorter one. With an estimate that is admissible but not
+                    // consistent, this can put an already expanded node back into the queue.
+                    state.visit(neighbor.id, id);
+                    distance[neighbor.id] = next;
+                    long pathEstimate = (long) next + estimate.applyAsInt(neighbor.id);
+                    if (pathEstimate <= limit) {
+                        open.offer(neighbor.id, aStarPriority((int) Math.min(pathEstimate, Integer.MAX_VALUE), next));
+                    }
+                }
+            }
+        } finally {
+            open.clear();
+        }
+    }
+
+    // Returns the queue priority of a node with the given estimated path length and distance from the source.
+    // Lower estimates come first. Among equal estimates, nodes further from the source come first, since they
+    // are likely closer to the destination.
+    private static long aStarPriority(int estimate, int distance) {
+        return ((long) estimate << 32) | (Integer.MAX_VALUE - distance);
+    }
+
+    // Returns the weight of the edge between from and to, or -1 if there is no such edge.
+    public int getWeight(K from, K to) {
+        Node fromNode = findNode(from);
+        Node toNode = findNode(to);
+        if (fromNode == null || toNode == null) {
+            return -1;
+        }
+        int index = neighborIndex(fromNode, toNode);
+        if (index < fromNode.getNeighbors().size() && fromNode.getNeighbors().get(index) == toNode) {
+            return fromNode.weight(index);
+        }
+        return -1;
+    }
+
+    // Finds a path of least total edge weight between node from and node to using Dijkstra's algorithm, as an
+    // array of node names. Returns 0 length array if no path exists. Edges added without a weight weigh 1, so
+    // on an unweighted graph this finds a shortest path just like BFS.
+    // While no edge weighs more than BUCKET_QUEUE_MAX_WEIGHT, the nodes are ordered with a BucketQueue, which
+    // takes constant time per operation; otherwise with a binary heap.
+    public K[] shortestWeightedPath(K from, K to) {
+        return runQuery(SearchAlgorithm.DIJKSTRA, true, from, to, dijkstra);
+    }
+
+    // Same as shortestWeightedPath(from, to), but writes the path to the given buffer (see
+    // BFS(K, K, PathBuffer)).
+    public boolean shortestWeightedPath(K from, K to, PathBuffer<K> path) {
+        runQuery(SearchAlgorithm.DIJKSTRA, true, from, to, dijkstra, path);
+        return !path.isEmpty();
+    }
+
+    private void dijkstraSearch(K from, K to, PathBuffer<K> path, QueryStats stats) {
+        Node fromNode = findNode(from);
+        Node toNode = findNode(to);
+        if (isTrivialQuery(fromNode, toNode, path)) {
+            return;
+        }
+        SearchState state = acquireState(stats, false);
+        long[] cost = state.cost(adjList.size());
+        IndexedPriorityQueue open = maxWeight <= BUCKET_QUEUE_MAX_WEIGHT
+                ? state.buckets(adjList.size(), maxWeight + 1) : state.heap(adjList.size());
+        try {
+            state.visit(fromNode.id, -1);
+            cost[fromNode.id] = 0;
+            open.offer(fromNode.id, 0);
+            while (!open.isEmpty()) {
+                int id = open.poll();
+                // The cost of a node is final once it leaves the queue, since no edge weight is negative.
+                if (id == toNode.id) {
+                    constructPath(fromNode, toNode, state, path);
+                    return;
+                }
+                Node v = adjList.get(id);
+                ArrayList<Node> neighbors = v.getNeighbors();
+                if (stats != null) {
+                    stats.expand(neighbors.size(), open.size() + 1);
+                }
+                for (int i = 0; i < neighbors.size(); i++) {
+                    Node neighbor = neighbors.get(i);
+                    if (neighbor.removed) {
+                        continue;
+                    }
+                    long next = cost[id] + v.weight(i);
+                    if (state.isVisited(neighbor.id) && cost[neighbor.id] <= next) {
+                        continue;
+                    }
+                    // First path to neighbor, or a cheaper one.
+                    state.visit(neighbor.id, id);
+                    cost[neighbor.id] = next;
+                    open.offer(neighbor.id, next);
+                }
+            }
+        } finally {
+            open.clear();
+        }
+    }
+
+    // Finds a path for each (from, to) pair of queries using Breadth First search, and returns the paths in
+    // the same order as the queries. Each path is the same as BFS(from, to) would return, and each query is
+    // answered from the path cache when possible and reported to the listener, the same as a BFS query.
+    // Queries with the same source share a single search, which stops once all their destinations are
+    // found. The searches for different sources run in parallel on the common fork/join pool.
+    public List<K[]> shortestPaths(List<Pair<K, K>> queries) {
+        // Group the query positions by source.
+        HashMap<K, List<Integer>> bySource = new HashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            bySource.computeIfAbsent(queries.get(i).getFirst(), k -> new ArrayList<>()).add(i);
+        }
+        List<Map.Entry<K, List<Integer>>> groups = new ArrayList<>(bySource.entrySet());
+        List<List<K[]>> groupPaths = groups.parallelStream().map(group -> {
+            List<K> destinations = new ArrayList<>(group.getValue().size());
+            for (int i : group.getValue()) {
+                destinations.add(queries.get(i).getSecond());
+            }
+            return shortestPathsFrom(group.getKey(), destinations);
+        }).collect(Collectors.toList());
+        // Put each path at the position of its query.
+        ArrayList<K[]> paths = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        for (int g = 0; g < groups.size(); g++) {
+            List<Integer> positions = groups.get(g).getValue();
+            for (int j = 0; j < positions.size(); j++) {
+                paths.set(positions.get(j), groupPaths.get(g).get(j));
+            }
+        }
+        return paths;
+    }
+
+    // Answers the queries from source from to each of the given destinations, and returns their paths in the
+    // same order. The first query that is not in the path cache runs one Breadth First search that continues
+    // until every destination has been reached, and the other queries read their paths from it.
+    private List<K[]> shortestPathsFrom(K from, List<K> destinations) {
+        SharedBfs search = new SharedBfs(destinations);
+        List<K[]> paths = new ArrayList<>(destinations.size());
+        for (K to : destinations) {
+            paths.add(runQuery(SearchAlgorithm.BFS, true, from, to, search));
+        }
+        return paths;
+    }
+
+    // A Breadth First search from one source to several destinations, shared by the queries of shortestPaths
+    // that start at that source. The search runs when the first of them needs it; its work is counted in the
+    // stats of that query.
+    private class SharedBfs implements PathSearch<K> {
+        private final List<K> destinations;
+
+        // This thread's search state, holding the parent links of the search, or null if it has not run yet.
+        private SearchState state;
+
+        // Epoch of the state when the search ran. If the state has been reused since (by a listener running
+        // queries of its own), the search has to run again.
+        private int epoch;
+
+        SharedBfs(List<K> destinations) {
+            this.destinations = destinations;
+        }
+
+        @Override
+        public void search(K from, K to, PathBuffer<K> path, QueryStats stats) {
+            Node fromNode = findNode(from);
+            Node toNode = findNode(to);
+            if (isTrivialQuery(fromNode, toNode, path)) {
+                return;
+            }
+            if (state == null || state.epoch() != epoch) {
+                run(fromNode, stats);
+            }
+            if (state.isVisited(toNode.id)) {
+                constructPath(fromNode, toNode, state, path);
+            }
+        }
+
+        // Runs Breadth First search from fromNode until every destination it is connected to has been reached.
+        private void run(Node fromNode, QueryStats stats) {
+            // Mark the destinations in a second search state, and count the distinct ones to be found.
+            SearchState targets = acquireState(stats, true);
+            int remaining = 0;
+            for (K to : destinations) {
+                Node toNode = findNode(to);
+                if (toNode != null && toNode != fromNode && !targets.isVisited(toNode.id)
+                        && connected(fromNode, toNode)) {
+                    targets.visit(toNode.id, -1);
+                    remaining++;
+                }
+            }
+            state = acquireState(stats, false);
+            epoch = state.epoch();
+            int[] queue = state.queue;
+            int head = 0;
+            int tail = 0;
+            state.visit(fromNode.id, -1);
+            queue[tail++] = fromNode.id;
+            while (remaining > 0 && head < tail) {
+                Node v = adjList.get(queue[head++]);
+                if (stats != null) {
+                    stats.expand(v.getNeighbors().size(), tail - head + 1);
+                }
+                for (Node neighbor : v.getNeighbors()) {
+                    if (!state.isVisited(neighbor.id) && !neighbor.removed) {
+                        state.visit(neighbor.id, v.id);
+                        queue[tail++] = neighbor.id;
+                        if (targets.isVisited(neighbor.id)) {
+                            remaining--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Runs Breadth First search from source over its whole connected component, and returns the distances
+    // and parent links of every node reached, from which paths to any number of destinations can be read.
+    // The tree can only be read until the graph is next changed; after that it throws IllegalStateException.
+    public BfsTree<K> bfsTree(K source) {
+        return bfsTree(Collections.singletonList(source));
+    }
+
+    // Runs Breadth First search from all of the given sources at once, so that each node is reached from
+    // its nearest source (ties go to the source that comes first). Sources not in the graph are ignored.
+    public BfsTree<K> bfsTree(Collection<K> sources) {
+        int size = adjList.size();
+        int[] dist = new int[size];
+        int[] parent = new int[size];
+        Arrays.fill(dist, -1);
+        Arrays.fill(parent, -1);
+        // The distances in the tree serve as the visited marks; only the queue comes from the search state.
+        int[] queue = SearchState.acquire(size).queue;
+        int head = 0;
+        int tail = 0;
+        for (K source : sources) {
+            Node node = findNode(source);
+            if (node != null && dist[node.id] < 0) {
+                dist[node.id] = 0;
+                queue[tail++] = node.id;
+            }
+        }
+        while (head < tail) {
+            Node v = adjList.get(queue[head++]);
+            for (Node neighbor : v.getNeighbors()) {
+                if (dist[neighbor.id] < 0 && !neighbor.removed) {
+                    dist[neighbor.id] = dist[v.id] + 1;
+                    parent[neighbor.id] = v.id;
+                    queue[tail++] = neighbor.id;
+                }
+            }
+        }
+        return new BfsTree<>(dist, parent, name -> {
+            Node node = findNode(name);
+            return node == null ? -1 : node.id;
+        }, id -> adjList.get(id).getName(), modCount, () -> modCount);
+    }
+
+    // Returns an iterator over the names of the nodes reachable from start, in the order Depth First search
+    // visits them (start first). The traversal advances only as far as next() is called, so it can be
+    // stopped early or resumed later. Returns an empty iterator if start is not in the graph.
+    // The graph must not be changed while the iterator is in use.
+    public Iterator<K> dfsIterator(K start) {
+        return new DfsIterator(findNode(start));
+    }
+
+    // Lazy Depth First traversal. Keeps its own stack and visited set, so several iterators (and other
+    // searches) can be in progress at once.
+    private class DfsIterator implements Iterator<K> {
+        // Stack of node ids on the current path, and the position of the next neighbor to look at for each.
+        private int[] stackNode = new int[16];
+        private int[] stackNext = new int[16];
+        private int depth = -1;
+
+        // Ids of the nodes visited so far.
+        private BitSet visited = new BitSet();
+
+        // Next node to return, or null if it has not been found yet.
+        private Node pending;
+
+        DfsIterator(Node start) {
+            if (start != null) {
+                push(start);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending == null && depth >= 0) {
+                Node v = adjList.get(stackNode[depth]);
+                int next = stackNext[depth];
+                if (next == v.getNeighbors().size()) {
+                    depth--;
+                    continue;
+                }
+                stackNext[depth] = next + 1;
+                Node neighbor = v.getNeighbors().get(next);
+                if (!visited.get(neighbor.id) && !neighbor.removed) {
+                    push(neighbor);
+                }
+            }
+            return pending != null;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K name = pending.getName();
+            pending = null;
+            return name;
+        }
+
+        // Visits node and makes it the top of the stack.
+        private void push(Node node) {
+            visited.set(node.id);
+            depth++;
+            if (depth == stackNode.length) {
+                stackNode = Arrays.copyOf(stackNode, depth * 2);
+                stackNext = Arrays.copyOf(stackNext, depth * 2);
+            }
+            stackNode[depth] = node.id;
+            stackNext[depth] = 0;
+            pending = node;
+        }
+    }
+
+    // Returns the names of the nodes reachable from start as a stream, in the order Depth First search visits
+    // them. The traversal advances only as far as the stream is consumed, so limit() or findFirst() stop it
+    // early. Returns an empty stream if start is not in the graph.
+    public Stream<K> dfsStream(K start) {
+        return orderedStream(dfsIterator(start));
+    }
+
+    // Returns an iterator over the names of the nodes reachable from start, in the order Breadth First search
+    // visits them (start first, then the nodes one edge away, and so on). Like dfsIterator, the traversal
+    // advances only as far as next() is called. Returns an empty iterator if start is not in the graph.
+    // The graph must not be changed while the iterator is in use.
+    public Iterator<K> bfsIterator(K start) {
+        return new BfsIterator(findNode(start));
+    }
+
+    // Returns the names of the nodes reachable from start as a stream, in Breadth First order (see
+    // bfsIterator).
+    public Stream<K> bfsStream(K start) {
+        return orderedStream(bfsIterator(start));
+    }
+
+    private static <T> Stream<T> orderedStream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    // Lazy Breadth First traversal. A node's neighbors are queued only when the node itself is returned, so
+    // the work done is proportional to the number of nodes taken from the iterator.
+    private class BfsIterator implements Iterator<K> {
+        // Ids of the nodes queued but not returned yet are queue[head] .. queue[tail - 1].
+        private int[] queue = new int[16];
+        private int head;
+        private int tail;
+
+        // Ids of the nodes queued so far.
+        private BitSet visited = new BitSet();
+
+        BfsIterator(Node start) {
+            if (start != null) {
+                enqueue(start);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return head < tail;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node v = adjList.get(queue[head++]);
+            for (Node neighbor : v.getNeighbors()) {
+                if (!visited.get(neighbor.id) && !neighbor.removed) {
+                    enqueue(neighbor);
+                }
+            }
+            return v.getName();
+        }
+
+        private void enqueue(Node node) {
+            visited.set(node.id);
+            if (tail == queue.length) {
+                // Drop the ids already returned before growing.
+                System.arraycopy(queue, head, queue, 0, tail - head);
+                tail -= head;
+                head = 0;
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, tail * 2);
+                }
+            }
+            queue[tail++] = node.id;
+        }
+    }
+
+    // Returns a stream of the vertices of the graph, in no particular order. Vertex objects are created as
+    // the stream is consumed, so nothing is copied up front. The stream splits the vertex set into halves,
+    // so it can be made parallel (with parallel()) to process vertices on all cores.
+    // The graph must not be changed while the stream is in use.
+    public Stream<Vertex<K, V>> vertexStream() {
+        return StreamSupport.stream(new VertexSpliterator(0, adjList.size()), false);
+    }
+
+    // Returns the names of the neighbors of the given node as a stream, in sorted order, without copying the
+    // neighbor list. Returns an empty stream if the node is not in the graph.
+    public Stream<K> neighborStream(K name) {
+        Node node = findNode(name);
+        if (node == null) {
+            return Stream.empty();
+        }
+        return node.getNeighbors().stream().filter(neighbor -> !neighbor.removed).map(Node::getName);
+    }
+
+    // Returns an iterator over the names of the neighbors of the given node, in sorted order.
+    public Iterator<K> neighborIterator(K name) {
+        return neighborStream(name).iterator();
+    }
+
+    // Spliterator over the nodes with ids origin .. fence - 1, skipping tombstones. Splitting hands the first
+    // half of the remaining ids to a new spliterator.
+    private class VertexSpliterator implements Spliterator<Vertex<K, V>> {
+        private int origin;
+        private final int fence;
+
+        VertexSpliterator(int origin, int fence) {
+            this.origin = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Vertex<K, V>> action) {
+            while (origin < fence) {
+                Node node = adjList.get(origin++);
+                if (!node.removed) {
+                    action.accept(new Vertex<>(node.getName(), node.getData()));
+                    return true;
                 }
             }
+            return false;
         }
-        if (!found) {
-            return (K[]) Array.newInstance(from.getClass(), 0);
+
+        @Override
+        public void forEachRemaining(Consumer<? super Vertex<K, V>> action) {
+            for (; origin < fence; origin++) {
+                Node node = adjList.get(origin);
+                if (!node.removed) {
+                    action.accept(new Vertex<>(node.getName(), node.getData()));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Vertex<K, V>> trySplit() {
+            int mid = (origin + fence) >>> 1;
+            if (mid <= origin) {
+                return null;
+            }
+            VertexSpliterator prefix = new VertexSpliterator(origin, mid);
+            origin = mid;
+            return prefix;
+        }
+
+        // Exact unless there are tombstones.
+        @Override
+        public long estimateSize() {
+            return fence - origin;
         }
-        return constructPath(from, toNode);
+
+        @Override
+        public int characteristics() {
+            int sized = tombstones == 0 ? Spliterator.SIZED | Spliterator.SUBSIZED : 0;
+            return Spliterator.DISTINCT | Spliterator.NONNULL | sized;
+        }
+    }
+
+    // Returns whether a node with the given name is in the graph.
+    public boolean contains(K name) {
+        return findNode(name) != null;
+    }
+
+    // Returns the data associated with the given node, or null if the node is not in the graph. Unlike
+    // findVertex, creates no Vertex object.
+    public V getData(K name) {
+        Node node = findNode(name);
+        return node == null ? null : node.getData();
     }
 
-    // Get the list of vertices in the graph. Essentially copy of vertices in the adjacency list.
+    // Returns the number of neighbors of the given node, or 0 if the node is not in the graph.
+    public int degree(K name) {
+        Node node = findNode(name);
+        return node == null ? 0 : liveDegree(node);
+    }
+
+    // Calls action with the name and data of each neighbor of the given node, in sorted order of name.
+    // Reads the neighbor list in place, so nothing is allocated. Does nothing if the node is not in the graph.
+    public void forEachNeighbor(K name, BiConsumer<? super K, ? super V> action) {
+        Node node = findNode(name);
+        if (node == null) {
+            return;
+        }
+        for (Node neighbor : node.getNeighbors()) {
+            if (!neighbor.removed) {
+                action.accept(neighbor.getName(), neighbor.getData());
+            }
+        }
+    }
+
+    // Calls action with the name and data of every node in the graph, in no particular order, without
+    // copying anything.
+    public void forEachVertex(BiConsumer<? super K, ? super V> action) {
+        for (Node node : adjList) {
+            if (!node.removed) {
+                action.accept(node.getName(), node.getData());
+            }
+        }
+    }
+
+    // Get the list of vertices in the graph, in sorted order. Essentially copy of vertices in the adjacency list.
      List<Vertex<K, V>> getVertices() {
         ArrayList<Vertex<K, V>> vertexList = new ArrayList<>(adjList.size());
-        for (Node node : adjList) {
+        for (Node node : sortedNodes()) {
             vertexList.add(new Vertex<>(node.getName(), node.getData()));
         }
         return vertexList;
@@ -487,7 +1743,9 @@ public class Graph<K extends Comparable<? super K>, V> {
             return neighbors;
         }
         for (Node neighbor : node.getNeighbors()) {
-            neighbors.add(new Vertex<>(neighbor.getName(), neighbor.getData()));
+            if (!neighbor.removed) {
+                neighbors.add(new Vertex<>(neighbor.getName(), neighbor.getData()));
+            }
         }
         return neighbors;
     }
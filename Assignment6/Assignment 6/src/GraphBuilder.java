@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// Builds a Graph from a large number of nodes and edges in one go.
+// Graph.addEdge keeps every neighbor list sorted as it goes, which costs O(d) per edge for a node with
+// d neighbors. The builder instead only records each edge as a pair of int ids in a primitive buffer.
+// build() then sorts all edges at once (in parallel), drops duplicates and loops in a single pass, and
+// creates every neighbor list at its final size. The resulting graph is the same as one built by calling
+// addNode and addEdge with the same arguments.
+public class GraphBuilder<K extends Comparable<? super K>, V> {
+    // Most edges a builder can hold: two ints per edge must fit in the largest array the JVM can allocate.
+    private static final int MAX_EDGES = (Integer.MAX_VALUE - 8) / 2;
+
+    // Id assigned to each node name, in order of first appearance.
+    private HashMap<K, Integer> ids;
+
+    // Node names and data, indexed by id.
+    private ArrayList<K> names;
+    private ArrayList<V> data;
+
+    // Edges recorded so far, two ints (from id, to id) per edge.
+    private int[] edges;
+
+    // Number of ints used in edges.
+    private int edgeInts;
+
+    // Constructs an empty builder.
+    public GraphBuilder() {
+        ids = new HashMap<>();
+        names = new ArrayList<>();
+        data = new ArrayList<>();
+        edges = new int[16];
+        edgeInts = 0;
+    }
+
+    // Returns the number of nodes added so far.
+    public int nodeCount() {
+        return names.size();
+    }
+
+    // Returns the number of edges added so far, including any duplicates and loops that build() will drop.
+    public int edgeCount() {
+        return edgeInts / 2;
+    }
+
+    // Adds a new node with name and data. If duplicate found returns false.
+    // In case of duplicate, sets the data associated with name, if there was no data (meaning null)
+    // previously set for that node. Same as Graph.addNode.
+    public boolean addNode(K name, V nodeData) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            if (data.get(id) == null) {
+                data.set(id, nodeData);
+            }
+            return false;
+        }
+        addNewNode(name, nodeData);
+        return true;
+    }
+
+    // Adds an undirected edge between "from" and "to", creating the nodes if not present.
+    // Duplicate edges and loops are accepted here and dropped when the graph is built. Throws
+    // IllegalStateException if the builder already holds the most edges it can (about a billion).
+    public void addEdge(K from, K to) {
+        addEdgeIds(idOf(from), idOf(to));
+    }
+
+    // Adds an undirected edge between the nodes with the given ids, as returned by idOf.
+    // Used by loaders that resolve each distinct name to an id once and then add edges by id.
+    // Throws IllegalStateException if the builder already holds MAX_EDGES edges.
+    void addEdgeIds(int fromId, int toId) {
+        if (edgeInts == edges.length) {
+            if (edgeInts / 2 >= MAX_EDGES) {
+                throw new IllegalStateException("Too many edges: a GraphBuilder holds at most " + MAX_EDGES);
+            }
+            edges = Arrays.copyOf(edges, (int) Math.min(2L * MAX_EDGES, 2L * edges.length));
+        }
+        edges[edgeInts++] = fromId;
+        edges[edgeInts++] = toId;
+    }
+
+    // Sets the data of the node with the given id, if there was no data (meaning null) previously set.
+    void setDataIfNull(int id, V nodeData) {
+        if (data.get(id) == null) {
+            data.set(id, nodeData);
+        }
+    }
+
+    // Adds undirected edges between "from" and all nodes in "toList".
+    public void addEdges(K from, List<K> toList) {
+        for (K to : toList) {
+            addEdge(from, to);
+        }
+    }
+
+    // Builds the graph from all nodes and edges added so far.
+    public Graph<K, V> build() {
+        Csr csr = toCsr();
+        return Graph.fromSortedCsr(csr.keys, csr.data, csr.offsets, csr.targets);
+    }
+
+    // Builds an immutable snapshot directly, without creating the nodes of a Graph first.
+    public FrozenGraph<K, V> buildFrozen() {
+        Csr csr = toCsr();
+        return new FrozenGraph<>(csr.keys, csr.data, csr.offsets, csr.targets);
+    }
+
+    // Compressed sparse row form of the graph, with vertices numbered in sorted order of name.
+    private static class Csr {
+        Object[] keys;
+        Object[] data;
+        int[] offsets;
+        int[] targets;
+    }
+
+    // Sorts the nodes by name and the edges by (from, to), and removes duplicate edges and loops.
+    private Csr toCsr() {
+        int size = names.size();
+        // Number the nodes in sorted order of name, so that sorted ids mean sorted neighbor lists.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        K[] sortedNames = (K[]) names.toArray(new Comparable[size]);
+        Arrays.parallelSort(sortedNames);
+        int[] rank = new int[size];
+        Csr csr = new Csr();
+        csr.keys = sortedNames;
+        csr.data = new Object[size];
+        for (int i = 0; i < size; i++) {
+            int id = ids.get(sortedNames[i]);
+            rank[id] = i;
+            csr.data[i] = data.get(id);
+        }
+        // Pack each direction of each edge into a long with the source in the high half, so that sorting
+        // the longs sorts the edges by source and then by target.
+        long[] packed = new long[edgeInts];
+        int packedCount = 0;
+        for (int e = 0; e < edgeInts; e += 2) {
+            long from = rank[edges[e]];
+            long to = rank[edges[e + 1]];
+            // Skip loops.
+            if (from == to) {
+                continue;
+            }
+            packed[packedCount++] = (from << 32) | to;
+            packed[packedCount++] = (to << 32) | from;
+        }
+        Arrays.parallelSort(packed, 0, packedCount);
+        // Single pass: drop duplicates, count degrees, and write the targets.
+        csr.offsets = new int[size + 1];
+        int[] targets = new int[packedCount];
+        int targetCount = 0;
+        long previous = -1;
+        for (int i = 0; i < packedCount; i++) {
+            long edge = packed[i];
+            if (edge == previous) {
+                continue;
+            }
+            previous = edge;
+            csr.offsets[(int) (edge >>> 32) + 1]++;
+            targets[targetCount++] = (int) edge;
+        }
+        for (int i = 0; i < size; i++) {
+            csr.offsets[i + 1] += csr.offsets[i];
+        }
+        csr.targets = targetCount == packedCount ? targets : Arrays.copyOf(targets, targetCount);
+        return csr;
+    }
+
+    // Returns the id of the node with the given name, adding the node (with null data) if not present.
+    int idOf(K name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        return addNewNode(name, null);
+    }
+
+    private int addNewNode(K name, V nodeData) {
+        int id = names.size();
+        ids.put(name, id);
+        names.add(name);
+        data.add(nodeData);
+        return id;
+    }
+}
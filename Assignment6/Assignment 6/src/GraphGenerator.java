@@ -0,0 +1,331 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Generates large synthetic graphs for load testing: Erdos-Renyi random graphs, Barabasi-Albert power-law
+// graphs, grids, paths and random-word dictionaries, and writes them in the text formats read by Graph.read
+// and WordLadders.readWordGraph. Generators take a seed, and the same seed always gives the same graph.
+// Graphs are edge lists over vertex ids 0..n-1, two ints per edge, with each edge once and no loops.
+public class GraphGenerator {
+
+    // Usage: GraphGenerator <family> <vertices> <parameter> <seed> <output prefix> [alphabet size]
+    // Families, and what the parameter means for them:
+    //     er     Erdos-Renyi random graph; average degree
+    //     ba     Barabasi-Albert graph; edges from each new vertex to earlier ones
+    //     grid   square grid of about the given number of vertices; ignored
+    //     path   a single path; ignored
+    //     words  random words connected if they differ in one letter; word length
+    // Writes <prefix>.adj for Graph.read and <prefix>.words for WordLadders.readWordGraph, and for the words
+    // family also <prefix>.dict for WordLadders.buildFromDictionary. Vertices of the words family are named
+    // by their words in the .adj file; all other vertices are named by their ids.
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("Usage: GraphGenerator <er|ba|grid|path|words> <vertices> <parameter> <seed> "
+                    + "<output prefix> [alphabet size]");
+            return;
+        }
+        String family = args[0];
+        int n = Integer.parseInt(args[1]);
+        int parameter = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        String prefix = args[4];
+        try {
+            long start = System.nanoTime();
+            List<String> words = null;
+            int[] edges;
+            switch (family) {
+                case "er":
+                    edges = erdosRenyi(n, (long) n * parameter / 2, seed);
+                    break;
+                case "ba":
+                    edges = barabasiAlbert(n, parameter, seed);
+                    break;
+                case "grid":
+                    int side = (int) Math.sqrt(n);
+                    n = side * side;
+                    edges = grid(side, side);
+                    break;
+                case "path":
+                    edges = path(n);
+                    break;
+                case "words":
+                    int alphabet = args.length > 5 ? Integer.parseInt(args[5]) : 26;
+                    words = randomWords(n, parameter, alphabet, seed);
+                    edges = wordEdges(words);
+                    break;
+                default:
+                    System.err.println("Unknown graph family: " + family);
+                    return;
+            }
+            System.out.println("Generated " + n + " vertices and " + edges.length / 2 + " edges in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+            List<String> names = words;
+            IntFunction<String> name = names == null ? String::valueOf : names::get;
+            int[][] neighbors = neighborLists(n, edges);
+            writeAdjacencyList(Paths.get(prefix + ".adj"), neighbors, name);
+            writeWordGraph(Paths.get(prefix + ".words"), neighbors, name);
+            if (words != null) {
+                writeDictionary(Paths.get(prefix + ".dict"), words);
+            }
+            System.out.println("Wrote " + prefix + ".adj and " + prefix + ".words"
+                    + (words != null ? " and " + prefix + ".dict" : ""));
+        } catch (IOException e) {
+            System.err.println("Error writing files " + prefix + ".*: " + e);
+        }
+    }
+
+    // Returns the edges of a path through vertices 0, 1, ..., n-1 in order.
+    public static int[] path(int n) {
+        int[] edges = new int[2 * Math.max(n - 1, 0)];
+        for (int v = 0; v + 1 < n; v++) {
+            edges[2 * v] = v;
+            edges[2 * v + 1] = v + 1;
+        }
+        return edges;
+    }
+
+    // Returns the edges of a rows x cols grid, with vertex row * cols + col connected to the vertices to its
+    // right and below.
+    public static int[] grid(int rows, int cols) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException("Negative grid size: " + rows + " x " + cols);
+        }
+        long ints = 2 * ((long) rows * Math.max(cols - 1, 0) + (long) Math.max(rows - 1, 0) * cols);
+        if (ints > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges for a " + rows + " x " + cols + " grid: " + ints / 2);
+        }
+        int[] edges = new int[(int) ints];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int v = row * cols + col;
+                if (col + 1 < cols) {
+                    edges[count++] = v;
+                    edges[count++] = v + 1;
+                }
+                if (row + 1 < rows) {
+                    edges[count++] = v;
+                    edges[count++] = v + cols;
+                }
+            }
+        }
+        return edges;
+    }
+
+    // Returns an Erdos-Renyi G(n, M) random graph: edgeCount distinct edges, chosen uniformly at random among
+    // all pairs of distinct vertices.
+    public static int[] erdosRenyi(int n, long edgeCount, long seed) {
+        long maxEdges = (long) n * (n - 1) / 2;
+        if (edgeCount > maxEdges || edgeCount > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Too many edges for " + n + " vertices: " + edgeCount);
+        }
+        Random random = new Random(seed);
+        // Each edge packed into a long as (smaller end, larger end). Draw the missing number of edges, then
+        // sort and drop duplicates, until there are enough distinct edges.
+        long[] packed = new long[(int) edgeCount];
+        int count = 0;
+        while (count < edgeCount) {
+            while (count < edgeCount) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b) {
+                    packed[count++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+                }
+            }
+            Arrays.sort(packed, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || packed[i] != packed[distinct - 1]) {
+                    packed[distinct++] = packed[i];
+                }
+            }
+            count = distinct;
+        }
+        return unpack(packed, count);
+    }
+
+    // Returns a Barabasi-Albert preferential attachment graph: vertices 0..m form a clique, and every later
+    // vertex connects to m distinct earlier vertices, each chosen with probability proportional to its degree.
+    // Degrees follow a power law, with a few hubs of very high degree.
+    public static int[] barabasiAlbert(int n, int m, long seed) {
+        if (m < 1 || n <= m) {
+            throw new IllegalArgumentException("Barabasi-Albert graph needs 1 <= m < n, got m = " + m + ", n = " + n);
+        }
+        Random random = new Random(seed);
+        long total = (long) m * (m + 1) / 2 + (long) (n - m - 1) * m;
+        if (total > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Too many edges: " + total);
+        }
+        int[] edges = new int[(int) (2 * total)];
+        int count = 0;
+        for (int a = 0; a <= m; a++) {
+            for (int b = a + 1; b <= m; b++) {
+                edges[count++] = a;
+                edges[count++] = b;
+            }
+        }
+        int[] targets = new int[m];
+        for (int v = m + 1; v < n; v++) {
+            for (int i = 0; i < m; i++) {
+                // A random end point of a random edge is a vertex picked in proportion to its degree.
+                int target;
+                boolean repeated;
+                do {
+                    target = edges[random.nextInt(count)];
+                    repeated = false;
+                    for (int j = 0; j < i; j++) {
+                        repeated |= targets[j] == target;
+                    }
+                } while (repeated);
+                targets[i] = target;
+            }
+            for (int target : targets) {
+                edges[count++] = v;
+                edges[count++] = target;
+            }
+        }
+        return edges;
+    }
+
+    // Returns n distinct random words of the given length, over the first alphabet letters of 'a'..'z'.
+    public static List<String> randomWords(int n, int length, int alphabet, long seed) {
+        if (alphabet < 1 || alphabet > 26 || Math.pow(alphabet, length) < n) {
+            throw new IllegalArgumentException("Not enough distinct words of length " + length + " over "
+                    + alphabet + " letters for " + n + " words");
+        }
+        Random random = new Random(seed);
+        HashSet<String> seen = new HashSet<>();
+        List<String> words = new ArrayList<>(n);
+        char[] word = new char[length];
+        while (words.size() < n) {
+            for (int i = 0; i < length; i++) {
+                word[i] = (char) ('a' + random.nextInt(alphabet));
+            }
+            String w = new String(word);
+            if (seen.add(w)) {
+                words.add(w);
+            }
+        }
+        return words;
+    }
+
+    // Returns the edges between words (by position in the list) that differ in exactly one letter, as
+    // WordLadders.buildFromDictionary connects them.
+    public static int[] wordEdges(List<String> words) {
+        List<IntList> edgeLists = WordLadders.oneLetterEdges(words);
+        int total = 0;
+        for (IntList edges : edgeLists) {
+            total += edges.size;
+        }
+        int[] edges = new int[total];
+        int count = 0;
+        for (IntList list : edgeLists) {
+            System.arraycopy(list.values, 0, edges, count, list.size);
+            count += list.size;
+        }
+        return edges;
+    }
+
+    // Builds a graph from an edge list, with vertices named 0..n-1, and the name of each vertex as its data.
+    public static Graph<Integer, String> build(int n, int[] edges) {
+        GraphBuilder<Integer, String> builder = new GraphBuilder<>();
+        for (int v = 0; v < n; v++) {
+            builder.addNode(v, String.valueOf(v));
+        }
+        for (int e = 0; e < edges.length; e += 2) {
+            builder.addEdge(edges[e], edges[e + 1]);
+        }
+        return builder.build();
+    }
+
+    // Writes the graph in Graph.read format: one line per vertex, holding its name and the names of its
+    // neighbors. Vertices without neighbors get a line of their own, which Graph.read skips.
+    public static void writeAdjacencyList(Path path, int n, int[] edges, IntFunction<String> name)
+            throws IOException {
+        writeAdjacencyList(path, neighborLists(n, edges), name);
+    }
+
+    // Writes the graph in Graph.read format, from the sorted neighbor ids of every vertex (see neighborLists).
+    public static void writeAdjacencyList(Path path, int[][] neighbors, IntFunction<String> name)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, Charset.defaultCharset())) {
+            for (int v = 0; v < neighbors.length; v++) {
+                writer.write(name.apply(v));
+                for (int neighbor : neighbors[v]) {
+                    writer.write(' ');
+                    writer.write(name.apply(neighbor));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    // Writes the graph in WordLadders.readWordGraph format: one line per vertex, holding its id, its word and
+    // the ids of its neighbors.
+    public static void writeWordGraph(Path path, int n, int[] edges, IntFunction<String> word) throws IOException {
+        writeWordGraph(path, neighborLists(n, edges), word);
+    }
+
+    // Writes the graph in WordLadders.readWordGraph format, from the sorted neighbor ids of every vertex.
+    public static void writeWordGraph(Path path, int[][] neighbors, IntFunction<String> word) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, Charset.defaultCharset())) {
+            for (int v = 0; v < neighbors.length; v++) {
+                writer.write(Integer.toString(v));
+                writer.write(' ');
+                writer.write(word.apply(v));
+                for (int neighbor : neighbors[v]) {
+                    writer.write(' ');
+                    writer.write(Integer.toString(neighbor));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    // Writes the words one per line, for WordLadders.buildFromDictionary.
+    public static void writeDictionary(Path path, List<String> words) throws IOException {
+        Files.write(path, words, Charset.defaultCharset());
+    }
+
+    // Returns the sorted neighbor ids of every vertex.
+    public static int[][] neighborLists(int n, int[] edges) {
+        int[] degree = new int[n];
+        for (int end : edges) {
+            degree[end]++;
+        }
+        int[][] neighbors = new int[n][];
+        for (int v = 0; v < n; v++) {
+            neighbors[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int e = 0; e < edges.length; e += 2) {
+            int a = edges[e];
+            int b = edges[e + 1];
+            neighbors[a][degree[a]++] = b;
+            neighbors[b][degree[b]++] = a;
+        }
+        for (int[] list : neighbors) {
+            Arrays.sort(list);
+        }
+        return neighbors;
+    }
+
+    // Unpacks count edges packed as (a << 32 | b) into pairs of ints.
+    private static int[] unpack(long[] packed, int count) {
+        int[] edges = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            edges[2 * i] = (int) (packed[i] >>> 32);
+            edges[2 * i + 1] = (int) packed[i];
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,14 @@
+// Receives statistics about the work a Graph does, for monitoring. Set one with Graph.setListener, or pass one
+// to Graph.read. Without a listener the graph collects nothing, so the cost of instrumentation is one null
+// check per query.
+// Listeners are called on the thread that ran the query, and must be thread safe if queries run concurrently.
+// All methods do nothing by default, so implementations only override what they need.
+public interface GraphListener {
+    // Called after every BFS, DFS, bidirectionalBFS, aStar and shortestWeightedPath query.
+    default void onQuery(QueryStats stats) {
+    }
+
+    // Called after a graph has been read from a file.
+    default void onLoad(LoadStats stats) {
+    }
+}
@@ -0,0 +1,517 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Loads graph text files quickly, for Graph.read, WordLadders.readWordGraph and WordLadders.readIntWordGraph.
+// The file is memory-mapped and cut into line-aligned chunks, and each chunk is tokenized on its own core.
+// Tokens are found by scanning bytes for whitespace, with no regex and no String per token: ints are
+// parsed straight from the bytes, and in the adjacency format each distinct name gets one String per
+// chunk. The chunks are then merged in file order into a GraphBuilder, which builds the graph.
+// Only the tokenizing is parallel. The merge runs on one thread: it looks up each distinct name of a chunk
+// in the builder's HashMap once, and appends every edge. Files with few edges per distinct name, or with
+// names repeated across many chunks, spend a larger share of the load time in the merge.
+// Lines are split into tokens exactly as the line based readers did with BufferedReader.readLine and
+// String.split("\\s+"): lines end at "\n", "\r" or "\r\n", an empty line is one empty token, a line of
+// only blanks has no tokens, and a line starting with blanks has an empty first token.
+public class GraphLoader {
+    // Chunks are never smaller than this by default, so small files are parsed as a single chunk.
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    // Chunks are mapped one at a time, and a single mapping can not be larger than Integer.MAX_VALUE. Chunks
+    // are cut at this size and then extended to the end of the line, which leaves room for lines of up to 1MB.
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - (1 << 20);
+
+    // Same charset as the FileReader used by the line based readers.
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    // Reads a file in Graph.read format: each line holds a node name followed by the names of its neighbors.
+    public static <V> Graph<String, V> readAdjacencyList(String filename) throws IOException {
+        return readAdjacencyList(filename, MIN_CHUNK_SIZE);
+    }
+
+    // Same as readAdjacencyList(filename), with chunks of at least minChunkSize bytes.
+    static <V> Graph<String, V> readAdjacencyList(String filename, long minChunkSize) throws IOException {
+        List<ParsedChunk> chunks = parseChunks(filename, false, minChunkSize);
+        GraphBuilder<String, V> builder = new GraphBuilder<>();
+        for (ParsedChunk chunk : chunks) {
+            // Resolve each distinct name of the chunk once, the first time an edge uses it. A node named
+            // on a line without neighbors is not added, same as Graph.addEdges with an empty list.
+            int[] globalIds = new int[chunk.names.size()];
+            Arrays.fill(globalIds, -1);
+            int[] edges = chunk.edges.values;
+            for (int e = 0; e < chunk.edges.size; e++) {
+                int local = edges[e];
+                if (globalIds[local] < 0) {
+                    globalIds[local] = builder.idOf(chunk.names.get(local));
+                }
+            }
+            for (int e = 0; e < chunk.edges.size; e += 2) {
+                builder.addEdgeIds(globalIds[edges[e]], globalIds[edges[e + 1]]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Reads a file in WordLadders.readWordGraph format: each line holds a node id, its word, and the ids of
+    // its neighbors.
+    public static Graph<Integer, String> readWordGraph(String filename) throws IOException {
+        return readWordGraph(filename, MIN_CHUNK_SIZE);
+    }
+
+    // Same as readWordGraph(filename), with chunks of at least minChunkSize bytes.
+    static Graph<Integer, String> readWordGraph(String filename, long minChunkSize) throws IOException {
+        List<ParsedChunk> chunks = parseChunks(filename, true, minChunkSize);
+        GraphBuilder<Integer, String> builder = new GraphBuilder<>();
+        // Builder id of each file id. File ids may be negative or sparse, as with Integer.parseInt in the line
+        // based reader, so they are hashed rather than used as array indexes. The int table avoids boxing
+        // for every edge.
+        IdTable builderIds = new IdTable(builder);
+        for (ParsedChunk chunk : chunks) {
+            int[] values = chunk.edges.values;
+            int index = 0;
+            for (int line = 0; line < chunk.words.size(); line++) {
+                int nodeId = builderIds.idOf(values[index++]);
+                int neighborCount = values[index++];
+                builder.setDataIfNull(nodeId, chunk.words.get(line));
+                for (int i = 0; i < neighborCount; i++) {
+                    builder.addEdgeIds(nodeId, builderIds.idOf(values[index++]));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Reads a file in WordLadders.readWordGraph format into an IntGraph, adding the nodes and edges in file
+    // order.
+    public static IntGraph<String> readIntWordGraph(String filename) throws IOException {
+        return readIntWordGraph(filename, MIN_CHUNK_SIZE);
+    }
+
+    // Same as readIntWordGraph(filename), with chunks of at least minChunkSize bytes.
+    static IntGraph<String> readIntWordGraph(String filename, long minChunkSize) throws IOException {
+        List<ParsedChunk> chunks = parseChunks(filename, true, minChunkSize);
+        IntGraph<String> graph = new IntGraph<>();
+        for (ParsedChunk chunk : chunks) {
+            int[] values = chunk.edges.values;
+            int index = 0;
+            for (int line = 0; line < chunk.words.size(); line++) {
+                int node = values[index++];
+                int neighborCount = values[index++];
+                graph.addNode(node, chunk.words.get(line));
+                for (int i = 0; i < neighborCount; i++) {
+                    graph.addEdge(node, values[index++]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    // The result of tokenizing one chunk.
+    private static class ParsedChunk {
+        // Adjacency format: distinct names of the chunk, indexed by local id, and edges as pairs of local ids.
+        // Word format: the word of each line, and per line: node id, neighbor count, neighbor ids.
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<String> words = new ArrayList<>();
+        IntList edges = new IntList();
+    }
+
+    // Maps the file chunk by chunk and tokenizes the chunks in parallel. Results are in file order.
+    private static List<ParsedChunk> parseChunks(String filename, boolean wordFormat, long minChunkSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, minChunkSize);
+            List<Integer> indexes = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                indexes.add(i);
+            }
+            try {
+                return indexes.parallelStream().map(i -> {
+                    try {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i],
+                                bounds[i + 1] - bounds[i]);
+                        return wordFormat ? parseWordChunk(buffer) : parseAdjacencyChunk(buffer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Splits the file into chunks of about equal size, one or more per core, each ending just after a line
+    // end ("\n", "\r" or "\r\n", never between the two bytes of "\r\n") or at the end of the file. Returns
+    // the chunk start positions followed by the file size. Throws IOException if a chunk can not be mapped
+    // because a line near its end is too long.
+    static long[] chunkBounds(FileChannel channel, long minChunkSize) throws IOException {
+        long fileSize = channel.size();
+        int cores = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, fileSize / (cores * 4L) + 1));
+        ArrayList<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        ByteBuffer scan = ByteBuffer.allocate(4096);
+        while (fileSize - position > chunkSize) {
+            // Move the nominal end of the chunk forward to the end of its line, as long as it can be mapped.
+            long end = position + chunkSize;
+            boolean found = false;
+            while (!found && end < fileSize && end - position <= Integer.MAX_VALUE) {
+                scan.clear();
+                int read = channel.read(scan, end);
+                for (int i = 0; i < read; i++) {
+                    if (isLineEnd(scan.get(i))) {
+                        end += i + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    end += Math.max(read, 0);
+                }
+            }
+            // A "\r" may be the first half of "\r\n", which must stay in the same chunk.
+            if (found && end < fileSize) {
+                scan.clear();
+                scan.limit(2);
+                if (channel.read(scan, end - 1) == 2 && scan.get(0) == '\r' && scan.get(1) == '\n') {
+                    end++;
+                }
+            }
+            if (Math.min(end, fileSize) - position > Integer.MAX_VALUE) {
+                throw new IOException("Line too long: no line ends within " + Integer.MAX_VALUE
+                        + " bytes of offset " + position);
+            }
+            if (end >= fileSize) {
+                break;
+            }
+            bounds.add(end);
+            position = end;
+        }
+        bounds.add(fileSize);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Tokenizes a chunk in Graph.read format.
+    private static ParsedChunk parseAdjacencyChunk(ByteBuffer buffer) {
+        ParsedChunk chunk = new ParsedChunk();
+        NameTable table = new NameTable(buffer, chunk.names);
+        int limit = buffer.limit();
+        int pos = 0;
+        while (pos < limit) {
+            // First token of the line is the node, the rest are its neighbors.
+            int start = pos;
+            pos = firstTokenEnd(buffer, pos, limit);
+            if (pos < 0) {
+                pos = skipLineEnd(buffer, skipBlanks(buffer, start, limit), limit);
+                continue;
+            }
+            int node = table.idOf(start, pos - start);
+            while (true) {
+                pos = skipBlanks(buffer, pos, limit);
+                if (pos >= limit || isLineEnd(buffer.get(pos))) {
+                    break;
+                }
+                start = pos;
+                pos = tokenEnd(buffer, pos, limit);
+                chunk.edges.add(node);
+                chunk.edges.add(table.idOf(start, pos - start));
+            }
+            pos = skipLineEnd(buffer, pos, limit);
+        }
+        return chunk;
+    }
+
+    // Tokenizes a chunk in WordLadders.readWordGraph format.
+    private static ParsedChunk parseWordChunk(ByteBuffer buffer) {
+        ParsedChunk chunk = new ParsedChunk();
+        int limit = buffer.limit();
+        int pos = 0;
+        byte[] wordBytes = new byte[64];
+        while (pos < limit) {
+            // Node id. An empty first token (an empty line, or one starting with blanks) is not a number.
+            int start = pos;
+            pos = firstTokenEnd(buffer, pos, limit);
+            if (pos < 0) {
+                pos = skipLineEnd(buffer, skipBlanks(buffer, start, limit), limit);
+                continue;
+            }
+            chunk.edges.add(parseInt(buffer, start, pos));
+            int countIndex = chunk.edges.size;
+            chunk.edges.add(0);
+            // Word, if present.
+            pos = skipBlanks(buffer, pos, limit);
+            String word = null;
+            if (pos < limit && !isLineEnd(buffer.get(pos))) {
+                start = pos;
+                pos = tokenEnd(buffer, pos, limit);
+                int length = pos - start;
+                if (length > wordBytes.length) {
+                    wordBytes = new byte[length];
+                }
+                for (int i = 0; i < length; i++) {
+                    wordBytes[i] = buffer.get(start + i);
+                }
+                word = new String(wordBytes, 0, length, CHARSET);
+            }
+            chunk.words.add(word);
+            // Neighbor ids.
+            int neighborCount = 0;
+            while (true) {
+                pos = skipBlanks(buffer, pos, limit);
+                if (pos >= limit || isLineEnd(buffer.get(pos))) {
+                    break;
+                }
+                start = pos;
+                pos = tokenEnd(buffer, pos, limit);
+                chunk.edges.add(parseInt(buffer, start, pos));
+                neighborCount++;
+            }
+            chunk.edges.values[countIndex] = neighborCount;
+            pos = skipLineEnd(buffer, pos, limit);
+        }
+        return chunk;
+    }
+
+    // Returns whether b is whitespace within a line, matching \s in the line based readers (which never saw
+    // the line ends).
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    // Returns whether b ends a line, as in BufferedReader.readLine.
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    // Returns the position just after the line end at pos ("\r\n" counts as one), or pos if it is limit.
+    private static int skipLineEnd(ByteBuffer buffer, int pos, int limit) {
+        if (pos < limit && buffer.get(pos++) == '\r' && pos < limit && buffer.get(pos) == '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Returns the end of the first token of the line starting at pos, like the first element of
+    // String.split("\\s+"): an empty token at pos if the line is empty or starts with blanks. Returns -1 if
+    // the line holds nothing but blanks, which split turns into no tokens at all.
+    private static int firstTokenEnd(ByteBuffer buffer, int pos, int limit) {
+        byte b = buffer.get(pos);
+        if (isLineEnd(b)) {
+            return pos;
+        }
+        if (isBlank(b)) {
+            int next = skipBlanks(buffer, pos, limit);
+            return next >= limit || isLineEnd(buffer.get(next)) ? -1 : pos;
+        }
+        return tokenEnd(buffer, pos, limit);
+    }
+
+    // Returns the position of the first byte at or after pos that is not blank (line ends are not blank).
+    private static int skipBlanks(ByteBuffer buffer, int pos, int limit) {
+        while (pos < limit && isBlank(buffer.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Returns the position just after the token starting at pos.
+    private static int tokenEnd(ByteBuffer buffer, int pos, int limit) {
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (isLineEnd(b) || isBlank(b)) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    // Parses the decimal int in bytes start..end-1, like Integer.parseInt.
+    private static int parseInt(ByteBuffer buffer, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        if (pos == end) {
+            throw new NumberFormatException("Not a number: " + tokenString(buffer, start, end));
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: " + tokenString(buffer, start, end));
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Number out of range: " + tokenString(buffer, start, end));
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: " + tokenString(buffer, start, end));
+        }
+        return (int) value;
+    }
+
+    // Decodes bytes start..end-1 of buffer. Only used for error messages.
+    private static String tokenString(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, CHARSET);
+    }
+
+    // Open addressing hash table from a token (a range of bytes in the chunk) to its local id. A String is
+    // created only the first time a token is seen in the chunk.
+    private static class NameTable {
+        private final ByteBuffer buffer;
+        private final ArrayList<String> names;
+
+        // slots[i] is 0 if empty, else local id + 1.
+        private int[] slots = new int[1024];
+
+        // Position, length and hash of the first occurrence of each token, indexed by local id.
+        private int[] starts = new int[512];
+        private int[] lengths = new int[512];
+        private int[] hashes = new int[512];
+
+        NameTable(ByteBuffer buffer, ArrayList<String> names) {
+            this.buffer = buffer;
+            this.names = names;
+        }
+
+        int idOf(int start, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + buffer.get(start + i);
+            }
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && sameBytes(starts[id], start, lengths[id], length)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int id = names.size();
+            if (id == starts.length) {
+                starts = Arrays.copyOf(starts, id * 2);
+                lengths = Arrays.copyOf(lengths, id * 2);
+                hashes = Arrays.copyOf(hashes, id * 2);
+            }
+            starts[id] = start;
+            lengths[id] = length;
+            hashes[id] = hash;
+            names.add(tokenString(buffer, start, start + length));
+            slots[slot] = id + 1;
+            // Keep the table at most half full.
+            if ((id + 1) * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private boolean sameBytes(int start1, int start2, int length1, int length2) {
+            if (length1 != length2) {
+                return false;
+            }
+            for (int i = 0; i < length1; i++) {
+                if (buffer.get(start1 + i) != buffer.get(start2 + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            int[] newSlots = new int[slots.length * 2];
+            int mask = newSlots.length - 1;
+            for (int id = 0; id < names.size(); id++) {
+                int slot = mix(hashes[id]) & mask;
+                while (newSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = id + 1;
+            }
+            slots = newSlots;
+        }
+
+        private static int mix(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    // Open addressing hash table from a file id of the word format to its builder id. The builder id is
+    // assigned the first time a file id is seen.
+    private static class IdTable {
+        private final GraphBuilder<Integer, String> builder;
+
+        // values[i] is 0 if slot i is empty, else builder id + 1, and keys[i] is the file id in it.
+        private int[] keys = new int[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        IdTable(GraphBuilder<Integer, String> builder) {
+            this.builder = builder;
+        }
+
+        int idOf(int fileId) {
+            int mask = keys.length - 1;
+            int slot = NameTable.mix(fileId) & mask;
+            while (values[slot] != 0) {
+                if (keys[slot] == fileId) {
+                    return values[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int id = builder.idOf(fileId);
+            keys[slot] = fileId;
+            values[slot] = id + 1;
+            // Keep the table at most half full.
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            int[] newKeys = new int[keys.length * 2];
+            int[] newValues = new int[keys.length * 2];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] == 0) {
+                    continue;
+                }
+                int slot = NameTable.mix(keys[i]) & mask;
+                while (newValues[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = keys[i];
+                newValues[slot] = values[i];
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+}
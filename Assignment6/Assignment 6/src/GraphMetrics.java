@@ -0,0 +1,205 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// A GraphListener that aggregates query and load statistics: totals per search algorithm, and latency
+// histograms from which percentiles can be read. Counters are LongAdders, so many query threads can report at
+// once without contending. snapshot() returns everything as a flat map of named values, for export to a
+// monitoring system.
+// Latencies are kept in histograms with one bucket per power of two nanoseconds, so percentiles are accurate
+// to within a factor of two, and each histogram is a fixed 64 longs however many queries are recorded.
+public class GraphMetrics implements GraphListener {
+    private static final SearchAlgorithm[] ALGORITHMS = SearchAlgorithm.values();
+
+    // Per algorithm totals, indexed by ordinal.
+    private final LongAdder[] queries = newAdders();
+    private final LongAdder[] found = newAdders();
+    private final LongAdder[] cacheHits = newAdders();
+    private final LongAdder[] expandedNodes = newAdders();
+    private final LongAdder[] scannedEdges = newAdders();
+    private final LongAdder[] resetNanos = newAdders();
+    private final LongAdder[] totalNanos = newAdders();
+    private final LongAccumulator[] maxFrontier = new LongAccumulator[ALGORITHMS.length];
+    private final Histogram[] latency = new Histogram[ALGORITHMS.length];
+
+    private final LongAdder loads = new LongAdder();
+    private final Histogram loadLatency = new Histogram();
+    private volatile int lastLoadVertices;
+    private volatile long lastLoadEdges;
+
+    public GraphMetrics() {
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            maxFrontier[i] = new LongAccumulator(Math::max, 0);
+            latency[i] = new Histogram();
+        }
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[ALGORITHMS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void onQuery(QueryStats stats) {
+        int i = stats.getAlgorithm().ordinal();
+        queries[i].increment();
+        if (stats.isFound()) {
+            found[i].increment();
+        }
+        if (stats.isCacheHit()) {
+            cacheHits[i].increment();
+        }
+        expandedNodes[i].add(stats.getExpandedNodes());
+        scannedEdges[i].add(stats.getScannedEdges());
+        resetNanos[i].add(stats.getResetNanos());
+        totalNanos[i].add(stats.getTotalNanos());
+        maxFrontier[i].accumulate(stats.getMaxFrontier());
+        latency[i].record(stats.getTotalNanos());
+    }
+
+    @Override
+    public void onLoad(LoadStats stats) {
+        loads.increment();
+        loadLatency.record(stats.getNanos());
+        lastLoadVertices = stats.getVertexCount();
+        lastLoadEdges = stats.getEdgeCount();
+    }
+
+    // Returns the number of queries answered by the algorithm.
+    public long getQueryCount(SearchAlgorithm algorithm) {
+        return queries[algorithm.ordinal()].sum();
+    }
+
+    // Returns the number of those queries that found a path.
+    public long getFoundCount(SearchAlgorithm algorithm) {
+        return found[algorithm.ordinal()].sum();
+    }
+
+    // Returns the number of those queries answered from the path cache.
+    public long getCacheHitCount(SearchAlgorithm algorithm) {
+        return cacheHits[algorithm.ordinal()].sum();
+    }
+
+    // Returns the total number of nodes expanded by the algorithm.
+    public long getExpandedNodes(SearchAlgorithm algorithm) {
+        return expandedNodes[algorithm.ordinal()].sum();
+    }
+
+    // Returns the total number of edges looked at by the algorithm.
+    public long getScannedEdges(SearchAlgorithm algorithm) {
+        return scannedEdges[algorithm.ordinal()].sum();
+    }
+
+    // Returns the largest frontier of any query of the algorithm.
+    public long getMaxFrontier(SearchAlgorithm algorithm) {
+        return maxFrontier[algorithm.ordinal()].get();
+    }
+
+    // Returns the total time the algorithm's queries spent getting search state ready.
+    public long getResetNanos(SearchAlgorithm algorithm) {
+        return resetNanos[algorithm.ordinal()].sum();
+    }
+
+    // Returns the total time of the algorithm's queries.
+    public long getTotalNanos(SearchAlgorithm algorithm) {
+        return totalNanos[algorithm.ordinal()].sum();
+    }
+
+    // Returns an upper bound on the given percentile (fraction between 0 and 1) of the algorithm's query
+    // latencies, in nanoseconds, accurate to within a factor of two. Returns 0 if there were no queries.
+    public long getLatencyPercentile(SearchAlgorithm algorithm, double fraction) {
+        return latency[algorithm.ordinal()].percentile(fraction);
+    }
+
+    // Returns the number of graphs loaded.
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    // Returns an upper bound on the given percentile of load times, in nanoseconds.
+    public long getLoadPercentile(double fraction) {
+        return loadLatency.percentile(fraction);
+    }
+
+    // Returns the number of vertices of the last graph loaded.
+    public int getLastLoadVertices() {
+        return lastLoadVertices;
+    }
+
+    // Returns the number of edges of the last graph loaded.
+    public long getLastLoadEdges() {
+        return lastLoadEdges;
+    }
+
+    // Returns all metrics by name, such as "bfs.queries" or "a_star.latency.p99.ns", with algorithms that have
+    // no queries left out. The values are read one at a time while queries may be running, so they are not
+    // an atomic snapshot.
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (SearchAlgorithm algorithm : ALGORITHMS) {
+            long count = getQueryCount(algorithm);
+            if (count == 0) {
+                continue;
+            }
+            String prefix = algorithm.name().toLowerCase(Locale.ROOT) + ".";
+            values.put(prefix + "queries", count);
+            values.put(prefix + "found", getFoundCount(algorithm));
+            values.put(prefix + "cache.hits", getCacheHitCount(algorithm));
+            values.put(prefix + "expanded.nodes", getExpandedNodes(algorithm));
+            values.put(prefix + "scanned.edges", getScannedEdges(algorithm));
+            values.put(prefix + "max.frontier", getMaxFrontier(algorithm));
+            values.put(prefix + "reset.ns", getResetNanos(algorithm));
+            values.put(prefix + "total.ns", getTotalNanos(algorithm));
+            values.put(prefix + "latency.p50.ns", getLatencyPercentile(algorithm, 0.5));
+            values.put(prefix + "latency.p99.ns", getLatencyPercentile(algorithm, 0.99));
+            values.put(prefix + "latency.p999.ns", getLatencyPercentile(algorithm, 0.999));
+        }
+        if (getLoadCount() > 0) {
+            values.put("load.count", getLoadCount());
+            values.put("load.p50.ns", getLoadPercentile(0.5));
+            values.put("load.last.vertices", (long) getLastLoadVertices());
+            values.put("load.last.edges", getLastLoadEdges());
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    // Counts of values by power of two: bucket b holds values v with 2^b <= v < 2^(b+1) (and 0 in bucket 0).
+    private static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        void record(long value) {
+            buckets.incrementAndGet(Math.max(0, 63 - Long.numberOfLeadingZeros(value)));
+        }
+
+        // Returns the upper end of the bucket holding the given percentile.
+        long percentile(double fraction) {
+            long total = 0;
+            for (int b = 0; b < 64; b++) {
+                total += buckets.get(b);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int b = 0; b < 64; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) {
+                    return b == 63 ? Long.MAX_VALUE : (1L << (b + 1)) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
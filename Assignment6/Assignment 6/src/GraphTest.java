@@ -1,8 +1,22 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -174,6 +188,14 @@ public class GraphTest {
         graph.addEdges("C", cNeighbors);
     }
 
+    // The simple graph, plus node F joined to B and C. The BFS path from A to F is A B F, and the DFS path is
+    // A B C F.
+    private void createExtendedGraph() {
+        createSimpleGraph();
+        graph.addEdge("B", "F");
+        graph.addEdge("C", "F");
+    }
+
     @Test
     public void testRemoveNodes() {
         createSimpleGraph();
@@ -229,4 +251,1562 @@ public class GraphTest {
         assertTrue(bfsPath.length == 0);
     }
 
+    // Test the immutable CSR snapshot. It should answer queries exactly like the graph it was taken from.
+    @Test
+    public void testFreeze() {
+        createExtendedGraph();
+        FrozenGraph<String, Integer> frozen = graph.freeze();
+        assertEquals(frozen.size(), 6);
+        assertEquals(frozen.edgeCount(), 10);
+        assertArrayEquals(frozen.BFS("A", "F"), graph.BFS("A", "F"));
+        assertArrayEquals(frozen.DFS("A", "F"), graph.DFS("A", "F"));
+        assertArrayEquals(frozen.BFS("A", "A"), new String[] {"A"});
+        assertTrue(frozen.BFS("B", "N").length == 0);
+        assertTrue(frozen.DFS("B", "N").length == 0);
+
+        List<Vertex<String, Integer>> vertices = frozen.getVertices();
+        assertEquals(vertices.get(0).getName(), "A");
+        assertNull(vertices.get(0).getData());
+        assertEquals(vertices.get(5).getName(), "F");
+        List<Vertex<String, Integer>> neighbors = frozen.getNeighborsForNode("F");
+        assertTrue(neighbors.size() == 2);
+        assertEquals(neighbors.get(0).getName(), "B");
+        assertEquals(neighbors.get(1).getName(), "C");
+
+        // Changes to the graph do not show up in the snapshot.
+        graph.removeNode("B");
+        assertArrayEquals(frozen.BFS("A", "F"), new String[] {"A", "B", "F"});
+    }
+
+    // Test snapshots of random graphs, sparse and dense: the snapshot has the same vertices, data and neighbor
+    // lists as the graph, and finds the same BFS and DFS paths, also after the graph is changed.
+    @Test
+    public void testFreezeRandomGraphs() {
+        Random random = new Random(1);
+        int n = 300;
+        for (int edgeCount : new int[] {250, 1500}) {
+            Graph<Integer, Integer> randomGraph = new Graph<>();
+            for (int v = 0; v < n; v++) {
+                randomGraph.addNode(v, random.nextInt(10));
+            }
+            int added = 0;
+            while (added < edgeCount) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b && randomGraph.addEdge(a, b)) {
+                    added++;
+                }
+            }
+            FrozenGraph<Integer, Integer> frozen = randomGraph.freeze();
+            assertTrue(frozen.size() == n);
+            assertTrue(frozen.edgeCount() == edgeCount);
+            for (Vertex<Integer, Integer> vertex : randomGraph.getVertices()) {
+                assertEquals(frozen.findVertex(vertex.getName()).getData(), vertex.getData());
+                List<Vertex<Integer, Integer>> expected = randomGraph.getNeighborsForNode(vertex.getName());
+                List<Vertex<Integer, Integer>> actual = frozen.getNeighborsForNode(vertex.getName());
+                assertTrue(actual.size() == expected.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(actual.get(i).getName(), expected.get(i).getName());
+                }
+            }
+            List<Integer[]> bfsPaths = new ArrayList<>();
+            List<Integer[]> dfsPaths = new ArrayList<>();
+            for (int from = 0; from < n; from += 13) {
+                for (int to = 5; to < n; to += 17) {
+                    bfsPaths.add(randomGraph.BFS(from, to));
+                    dfsPaths.add(randomGraph.DFS(from, to));
+                    assertArrayEquals(frozen.BFS(from, to), bfsPaths.get(bfsPaths.size() - 1));
+                    assertArrayEquals(frozen.DFS(from, to), dfsPaths.get(dfsPaths.size() - 1));
+                }
+            }
+            for (int v = 0; v < n; v += 3) {
+                randomGraph.removeNode(v);
+            }
+            randomGraph.addEdge(1, n - 1);
+            int query = 0;
+            for (int from = 0; from < n; from += 13) {
+                for (int to = 5; to < n; to += 17) {
+                    assertArrayEquals(frozen.BFS(from, to), bfsPaths.get(query));
+                    assertArrayEquals(frozen.DFS(from, to), dfsPaths.get(query++));
+                }
+            }
+        }
+    }
+
+    // Test the int specialization. It should find the same paths as Graph<Integer, V> built the same way.
+    @Test
+    public void testIntGraph() {
+        Graph<Integer, String> boxed = new Graph<>();
+        IntGraph<String> primitive = new IntGraph<>();
+        int[][] edges = new int[][] {{0, 2}, {0, 3}, {0, 4}, {1, 3}, {1, 0}, {2, 4}, {2, 3}, {2, 1}, {1, 5}, {2, 5}};
+        for (int[] edge : edges) {
+            assertEquals(boxed.addEdge(edge[0], edge[1]), primitive.addEdge(edge[0], edge[1]));
+        }
+        assertFalse(primitive.addEdge(5, 1));
+        assertFalse(primitive.addEdge(3, 3));
+        assertTrue(primitive.size() == 6);
+        assertArrayEquals(primitive.getNeighbors(2), new int[] {0, 1, 3, 4, 5});
+
+        Integer[] bfsPath = boxed.BFS(0, 5);
+        Integer[] dfsPath = boxed.DFS(0, 5);
+        assertArrayEquals(primitive.BFS(0, 5), new int[] {bfsPath[0], bfsPath[1], bfsPath[2]});
+        assertArrayEquals(primitive.DFS(0, 5), new int[] {dfsPath[0], dfsPath[1], dfsPath[2], dfsPath[3]});
+        assertArrayEquals(primitive.BFS(4, 4), new int[] {4});
+        assertTrue(primitive.BFS(0, 9).length == 0);
+
+        // Data is set on a duplicate add only if it was null before.
+        assertFalse(primitive.addNode(3, "cat"));
+        assertFalse(primitive.addNode(3, "cot"));
+        assertEquals(primitive.getData(3), "cat");
+        primitive.addNode(7, "dog");
+        assertTrue(primitive.BFS(0, 7).length == 0);
+    }
+
+    // Nodes are indexed by hash, but getVertices must still list them in sorted order after any
+    // mix of additions and removals.
+    @Test
+    public void testVerticesStaySorted() {
+        graph = new Graph<>();
+        String[] names = new String[] {"m", "c", "x", "a", "q", "f"};
+        for (int i = 0; i < names.length; i++) {
+            assertTrue(graph.addNode(names[i], i));
+        }
+        graph.addEdge("m", "a");
+        graph.addEdge("x", "a");
+        assertTrue(graph.removeNode("c"));
+        assertTrue(graph.removeNode("f"));
+        assertTrue(graph.addNode("b", 10));
+        List<Vertex<String, Integer>> vertices = graph.getVertices();
+        String[] expected = new String[] {"a", "b", "m", "q", "x"};
+        assertTrue(vertices.size() == expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(vertices.get(i).getName(), expected[i]);
+        }
+        assertTrue(graph.findVertex("q").getData() == 4);
+        assertNull(graph.findVertex("c"));
+        assertArrayEquals(graph.BFS("m", "x"), new String[] {"m", "a", "x"});
+    }
+
+    // Test bulk construction. The builder should give the same graph as addNode and addEdge, including
+    // dropping duplicate edges and loops.
+    @Test
+    public void testGraphBuilder() {
+        createExtendedGraph();
+        GraphBuilder<String, Integer> builder = new GraphBuilder<>();
+        builder.addEdges("C", new ArrayList<>(Arrays.asList("E", "D", "B", "F")));
+        builder.addEdges("A", new ArrayList<>(Arrays.asList("C", "D", "E")));
+        builder.addEdges("B", new ArrayList<>(Arrays.asList("D", "A", "F")));
+        builder.addEdge("D", "A");
+        builder.addEdge("F", "F");
+        assertTrue(builder.addNode("G", 7));
+        assertFalse(builder.addNode("A", 1));
+        assertFalse(builder.addNode("A", 2));
+        graph.addNode("G", 7);
+        graph.addNode("A", 1);
+        Graph<String, Integer> built = builder.build();
+
+        List<Vertex<String, Integer>> expected = graph.getVertices();
+        List<Vertex<String, Integer>> actual = built.getVertices();
+        assertTrue(actual.size() == expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(actual.get(i).getName(), expected.get(i).getName());
+            assertEquals(actual.get(i).getData(), expected.get(i).getData());
+            List<Vertex<String, Integer>> expectedNeighbors = graph.getNeighborsForNode(expected.get(i).getName());
+            List<Vertex<String, Integer>> actualNeighbors = built.getNeighborsForNode(actual.get(i).getName());
+            assertTrue(actualNeighbors.size() == expectedNeighbors.size());
+            for (int j = 0; j < expectedNeighbors.size(); j++) {
+                assertEquals(actualNeighbors.get(j).getName(), expectedNeighbors.get(j).getName());
+            }
+        }
+        assertArrayEquals(built.BFS("A", "F"), graph.BFS("A", "F"));
+        assertArrayEquals(built.DFS("A", "F"), graph.DFS("A", "F"));
+        assertArrayEquals(builder.buildFrozen().DFS("A", "F"), graph.DFS("A", "F"));
+        // The built graph is an ordinary graph, so it can be changed further.
+        assertFalse(built.addEdge("A", "B"));
+        assertTrue(built.addEdge("G", "A"));
+    }
+
+    // Test that files split into many small chunks, with lines crossing the nominal chunk ends, load to the
+    // same graph as when read as a single chunk.
+    @Test
+    public void testGraphLoaderChunks() throws IOException {
+        Path adjacency = Files.createTempFile("graph", ".adj");
+        Path wordGraph = Files.createTempFile("graph", ".words");
+        try {
+            writeRandomWordGraph(adjacency, wordGraph, 300, 7);
+            Graph<String, Object> byName = GraphLoader.readAdjacencyList(adjacency.toString());
+            Graph<Integer, String> byId = GraphLoader.readWordGraph(wordGraph.toString());
+            assertTrue(byId.getVertices().size() == 300);
+            assertTrue(byName.freeze().edgeCount() > 300);
+            assertSameGraph(GraphLoader.readAdjacencyList(adjacency.toString(), 16), byName);
+            assertSameGraph(GraphLoader.readWordGraph(wordGraph.toString(), 16), byId);
+        } finally {
+            Files.delete(adjacency);
+            Files.delete(wordGraph);
+        }
+    }
+
+    // Test that GraphLoader reads files exactly as the line based readers it replaced did, with blank lines,
+    // lines starting with blanks and every kind of line end, in one chunk and in many.
+    @Test
+    public void testGraphLoaderMatchesLineReaders() throws IOException {
+        Path adjacency = Files.createTempFile("graph", ".adj");
+        Path wordGraph = Files.createTempFile("graph", ".words");
+        try {
+            writeRandomWordGraph(adjacency, wordGraph, 200, 11);
+            // Lines starting with blanks and empty lines only work in the adjacency format, where they add
+            // edges to a node named "" and nothing, respectively.
+            Files.write(adjacency, roughen(Files.readAllLines(adjacency), true).getBytes());
+            Files.write(wordGraph, roughen(Files.readAllLines(wordGraph), false).getBytes());
+            Graph<String, Object> expectedByName = readAdjacencyByLine(adjacency.toString());
+            Graph<Integer, String> expectedById = readWordGraphByLine(wordGraph.toString());
+            IntGraph<String> expectedInt = readIntWordGraphByLine(wordGraph.toString());
+            assertEquals(expectedByName.getVertices().get(0).getName(), "");
+            for (long chunkSize : new long[] {16, 1000, 1 << 20}) {
+                Graph<String, Object> byName = GraphLoader.readAdjacencyList(adjacency.toString(), chunkSize);
+                assertSameGraph(byName, expectedByName);
+                assertSameGraph(GraphLoader.readWordGraph(wordGraph.toString(), chunkSize), expectedById);
+                IntGraph<String> byIntId = GraphLoader.readIntWordGraph(wordGraph.toString(), chunkSize);
+                assertArrayEquals(byIntId.getVertices(), expectedInt.getVertices());
+                for (int id : expectedInt.getVertices()) {
+                    assertEquals(byIntId.getData(id), expectedInt.getData(id));
+                    assertArrayEquals(byIntId.getNeighbors(id), expectedInt.getNeighbors(id));
+                }
+            }
+
+            // In the word format, an empty line or one starting with blanks has no node id.
+            for (String bad : new String[] {"0 cat 1\n\n1 cot 0\n", "0 cat 1\n 1 cot 0\n"}) {
+                Files.write(wordGraph, bad.getBytes());
+                for (long chunkSize : new long[] {4, 1 << 20}) {
+                    try {
+                        GraphLoader.readWordGraph(wordGraph.toString(), chunkSize);
+                        fail("Expected NumberFormatException");
+                    } catch (NumberFormatException e) {
+                        // Expected, as from the line based reader.
+                    }
+                }
+            }
+
+            // Chunks end after any line end, so files with "\r" line ends are split too, and "\r\n" is never
+            // cut in two.
+            for (String lineEnd : new String[] {"\r", "\r\n"}) {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < 200; i++) {
+                    text.append(i).append(" w").append(i).append(' ').append((i + 1) % 200).append(lineEnd);
+                }
+                byte[] bytes = text.toString().getBytes();
+                Files.write(wordGraph, bytes);
+                try (FileChannel channel = FileChannel.open(wordGraph)) {
+                    long[] bounds = GraphLoader.chunkBounds(channel, 100);
+                    assertTrue(bounds.length > 2 && bounds[bounds.length - 1] == bytes.length);
+                    for (int i = 1; i + 1 < bounds.length; i++) {
+                        int end = (int) bounds[i];
+                        assertTrue(bytes[end - 1] == lineEnd.charAt(lineEnd.length() - 1) && bytes[end] != '\n');
+                    }
+                }
+                Graph<Integer, String> byId = GraphLoader.readWordGraph(wordGraph.toString(), 100);
+                assertTrue(byId.getVertices().size() == 200);
+                assertSameGraph(byId, readWordGraphByLine(wordGraph.toString()));
+            }
+
+            // Any int is a valid word id, including negative ids and ids far apart.
+            Files.write(wordGraph, ("-5 cat 2000000000 2147483647\n2000000000 cot -5 -2147483648\n"
+                    + "2147483647 cut -5\n-2147483648 dot 2000000000\n").getBytes());
+            expectedById = readWordGraphByLine(wordGraph.toString());
+            for (long chunkSize : new long[] {4, 1 << 20}) {
+                Graph<Integer, String> byId = GraphLoader.readWordGraph(wordGraph.toString(), chunkSize);
+                assertTrue(byId.getVertices().size() == 4);
+                assertSameGraph(byId, expectedById);
+            }
+        } finally {
+            Files.delete(adjacency);
+            Files.delete(wordGraph);
+        }
+    }
+
+    // Writes count random three-letter words, some repeated, as a word graph where two words are neighbors
+    // if they differ in one position: to adjacency as each word followed by its neighbors, and to wordGraph
+    // as each word's id, the word and the ids of its neighbors.
+    private void writeRandomWordGraph(Path adjacency, Path wordGraph, int count, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            char[] letters = new char[3];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = (char) ('a' + random.nextInt(6));
+            }
+            words[i] = new String(letters);
+        }
+        StringBuilder byName = new StringBuilder();
+        StringBuilder byId = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            byName.append(words[i]);
+            byId.append(i).append(' ').append(words[i]);
+            for (int j = 0; j < count; j++) {
+                int differences = 0;
+                for (int k = 0; k < 3; k++) {
+                    if (words[i].charAt(k) != words[j].charAt(k)) {
+                        differences++;
+                    }
+                }
+                if (differences == 1) {
+                    byName.append(' ').append(words[j]);
+                    byId.append(' ').append(j);
+                }
+            }
+            byName.append('\n');
+            byId.append('\n');
+        }
+        Files.write(adjacency, byName.toString().getBytes());
+        Files.write(wordGraph, byId.toString().getBytes());
+    }
+
+    // Asserts that the graphs have the same vertices, with the same data and the same neighbors in order.
+    private <K extends Comparable<? super K>, V> void assertSameGraph(Graph<K, V> actual,
+                                                                      Graph<K, V> expected) {
+        List<Vertex<K, V>> expectedVertices = expected.getVertices();
+        List<Vertex<K, V>> actualVertices = actual.getVertices();
+        assertTrue(actualVertices.size() == expectedVertices.size());
+        for (int i = 0; i < expectedVertices.size(); i++) {
+            K name = expectedVertices.get(i).getName();
+            assertEquals(actualVertices.get(i).getName(), name);
+            assertEquals(actualVertices.get(i).getData(), expectedVertices.get(i).getData());
+            assertEquals(neighborNames(actual, name), neighborNames(expected, name));
+        }
+    }
+
+    // Returns the names of the neighbors of node, in order.
+    private <K extends Comparable<? super K>, V> List<K> neighborNames(Graph<K, V> g, K node) {
+        List<K> names = new ArrayList<>();
+        for (Vertex<K, V> neighbor : g.getNeighborsForNode(node)) {
+            names.add(neighbor.getName());
+        }
+        return names;
+    }
+
+    // Joins the lines with "\n", "\r\n" and "\r" line ends, adds blank lines and trailing blanks, and if
+    // adjacency, empty lines and lines starting with blanks.
+    private String roughen(List<String> lines, boolean adjacency) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            if (adjacency && i % 7 == 0) {
+                text.append(" \t");
+            }
+            text.append(lines.get(i));
+            if (i % 4 == 0) {
+                text.append(" \t ");
+            }
+            text.append(i % 3 == 0 ? "\r\n" : i % 5 == 0 ? "\r" : "\n");
+            if (i % 6 == 0) {
+                text.append("  \t\n");
+            }
+            if (adjacency && i % 8 == 0) {
+                text.append("\n");
+            }
+        }
+        return text.toString();
+    }
+
+    // The line based readers GraphLoader replaced, for comparison.
+    private Graph<String, Object> readAdjacencyByLine(String filename) throws IOException {
+        Graph<String, Object> g = new Graph<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] nodeNames = line.split("\\s+");
+                if (nodeNames.length > 0) {
+                    g.addEdges(nodeNames[0], Arrays.asList(nodeNames).subList(1, nodeNames.length));
+                }
+            }
+        }
+        return g;
+    }
+
+    private Graph<Integer, String> readWordGraphByLine(String filename) throws IOException {
+        Graph<Integer, String> g = new Graph<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] nodeNames = line.split("\\s+");
+                if (nodeNames.length > 0) {
+                    int node = Integer.parseInt(nodeNames[0]);
+                    g.addNode(node, nodeNames.length > 1 ? nodeNames[1] : null);
+                    List<Integer> neighbors = new ArrayList<>();
+                    for (int i = 2; i < nodeNames.length; i++) {
+                        neighbors.add(Integer.parseInt(nodeNames[i]));
+                    }
+                    g.addEdges(node, neighbors);
+                }
+            }
+        }
+        return g;
+    }
+
+    private IntGraph<String> readIntWordGraphByLine(String filename) throws IOException {
+        IntGraph<String> g = new IntGraph<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] nodeNames = line.split("\\s+");
+                if (nodeNames.length > 0) {
+                    int node = Integer.parseInt(nodeNames[0]);
+                    g.addNode(node, nodeNames.length > 1 ? nodeNames[1] : null);
+                    for (int i = 2; i < nodeNames.length; i++) {
+                        g.addEdge(node, Integer.parseInt(nodeNames[i]));
+                    }
+                }
+            }
+        }
+        return g;
+    }
+
+    // Test saving to and loading from the binary format.
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        createSimpleGraph();
+        graph.addEdge("B", "F");
+        graph.addNode("G", 7);
+        graph.addNode("A", 30);
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            graph.save(file);
+            Graph<String, Integer> loaded = Graph.load(file);
+            List<Vertex<String, Integer>> expected = graph.getVertices();
+            List<Vertex<String, Integer>> actual = loaded.getVertices();
+            assertTrue(actual.size() == expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(actual.get(i).getName(), expected.get(i).getName());
+                assertEquals(actual.get(i).getData(), expected.get(i).getData());
+                assertTrue(loaded.getNeighborsForNode(actual.get(i).getName()).size()
+                        == graph.getNeighborsForNode(expected.get(i).getName()).size());
+            }
+            assertArrayEquals(loaded.DFS("A", "F"), graph.DFS("A", "F"));
+            assertArrayEquals(FrozenGraph.<String, Integer>load(file).BFS("E", "F"), graph.BFS("E", "F"));
+
+            // A file in another format is rejected.
+            Files.write(file, "P S R Q".getBytes());
+            try {
+                Graph.load(file);
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // Expected.
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Test that damaged files with a valid magic number are rejected with IOException.
+    @Test
+    public void testLoadCorrupt() throws IOException {
+        createSimpleGraph();
+        int size = graph.getVertices().size();
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            graph.save(file);
+            byte[] saved = Files.readAllBytes(file);
+            List<byte[]> corrupt = new ArrayList<>();
+            // Negative vertex count, and an edge count far larger than the file.
+            corrupt.add(withInt(saved, 8, -1));
+            corrupt.add(withInt(saved, 12, Integer.MAX_VALUE));
+            // Offsets that decrease, and a neighbor id out of range.
+            corrupt.add(withInt(saved, 24, 1000));
+            corrupt.add(withInt(saved, 20 + 4 * (size + 1), size));
+            // Cut off inside the arrays, and inside the keys.
+            corrupt.add(Arrays.copyOf(saved, 30));
+            corrupt.add(Arrays.copyOf(saved, saved.length - 10));
+            for (byte[] bytes : corrupt) {
+                Files.write(file, bytes);
+                try {
+                    FrozenGraph.load(file);
+                    fail("Expected IOException");
+                } catch (IOException e) {
+                    // Expected.
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Returns a copy of bytes with the big-endian int at the given position replaced by value.
+    private byte[] withInt(byte[] bytes, int position, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(position, value);
+        return copy;
+    }
+
+    // Test that searches from many threads on one graph do not interfere with each other.
+    @Test
+    public void testConcurrentSearches() throws InterruptedException {
+        graph = new Graph<>();
+        // A 30 x 30 grid, where node "r,c" is connected to its right and lower neighbors.
+        for (int r = 0; r < 30; r++) {
+            for (int c = 0; c < 30; c++) {
+                if (c + 1 < 30) {
+                    graph.addEdge(r + "," + c, r + "," + (c + 1));
+                }
+                if (r + 1 < 30) {
+                    graph.addEdge(r + "," + c, (r + 1) + "," + c);
+                }
+            }
+        }
+        String[] expectedBfs = graph.BFS("0,0", "29,29");
+        String[] expectedDfs = graph.DFS("29,0", "0,29");
+        assertTrue(expectedBfs.length == 59);
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (!Arrays.equals(graph.BFS("0,0", "29,29"), expectedBfs)
+                            || !Arrays.equals(graph.DFS("29,0", "0,29"), expectedDfs)) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+
+    // Test bidirectional search. It must return a shortest path, though not necessarily the one BFS returns.
+    @Test
+    public void testBidirectionalBFS() {
+        createExtendedGraph();
+        assertArrayEquals(graph.bidirectionalBFS("A", "A"), new String[] {"A"});
+        assertArrayEquals(graph.bidirectionalBFS("F", "B"), new String[] {"F", "B"});
+        assertTrue(graph.bidirectionalBFS("A", "F").length == 3);
+        // Test a non-existent path.
+        assertTrue(graph.bidirectionalBFS("B", "N").length == 0);
+        graph.addEdge("X", "Y");
+        assertTrue(graph.bidirectionalBFS("A", "Y").length == 0);
+
+        // On cycles of odd and even length, the two searches meet at a node when the distance is even and
+        // across an edge when it is odd, and at the far side of the cycle there are two shortest paths.
+        for (int length = 3; length <= 10; length++) {
+            Graph<Integer, Integer> cycle = new Graph<>();
+            for (int i = 0; i < length; i++) {
+                cycle.addEdge(i, (i + 1) % length);
+            }
+            for (int to = 0; to < length; to++) {
+                assertShortestPath(cycle, cycle.bidirectionalBFS(0, to), 0, to);
+                assertShortestPath(cycle, cycle.bidirectionalBFS(to, 0), to, 0);
+            }
+        }
+
+        // A hub next to the source: the search keeps expanding the smaller side, from the destination, until
+        // it reaches the hub.
+        Graph<Integer, Integer> hub = new Graph<>();
+        for (int i = 1; i <= 100; i++) {
+            hub.addEdge(0, -i);
+        }
+        for (int i = 0; i < 6; i++) {
+            hub.addEdge(i, i + 1);
+        }
+        assertArrayEquals(hub.bidirectionalBFS(-50, 6), new Integer[] {-50, 0, 1, 2, 3, 4, 5, 6});
+        assertArrayEquals(hub.bidirectionalBFS(6, -50), new Integer[] {6, 5, 4, 3, 2, 1, 0, -50});
+
+        // Two routes between the ends, of 6 and 5 edges. The nodes of the longer one are searched first, but
+        // the path takes the shorter one.
+        Graph<Integer, Integer> routes = new Graph<>();
+        int[] longRoute = new int[] {0, 1, 2, 3, 4, 5, 100};
+        int[] shortRoute = new int[] {0, 50, 51, 52, 53, 100};
+        for (int[] route : new int[][] {longRoute, shortRoute}) {
+            for (int i = 0; i + 1 < route.length; i++) {
+                routes.addEdge(route[i], route[i + 1]);
+            }
+        }
+        assertArrayEquals(routes.bidirectionalBFS(0, 100), new Integer[] {0, 50, 51, 52, 53, 100});
+        assertArrayEquals(routes.bidirectionalBFS(100, 0), new Integer[] {100, 53, 52, 51, 50, 0});
+    }
+
+    // Asserts that path leads from node from to node to along edges of g, and is as short as the BFS path.
+    private static void assertShortestPath(Graph<Integer, Integer> g, Integer[] path, int from, int to) {
+        assertTrue(path.length == g.BFS(from, to).length);
+        assertTrue(path[0] == from && path[path.length - 1] == to);
+        for (int i = 0; i + 1 < path.length; i++) {
+            boolean adjacent = false;
+            for (Vertex<Integer, Integer> neighbor : g.getNeighborsForNode(path[i])) {
+                adjacent |= neighbor.getName().equals(path[i + 1]);
+            }
+            assertTrue(adjacent);
+        }
+    }
+
+    // Test that DFS works on graphs far deeper than the call stack would allow with recursion.
+    @Test
+    public void testDeepDFS() {
+        Graph<Integer, Integer> path = new Graph<>();
+        int length = 200000;
+        for (int i = 0; i + 1 < length; i++) {
+            path.addEdge(i, i + 1);
+        }
+        Integer[] dfsPath = path.DFS(0, length - 1);
+        assertTrue(dfsPath.length == length);
+        assertTrue(dfsPath[length - 1] == length - 1);
+    }
+
+    // Test the lazy DFS iterator. It visits nodes in the order DFS does, and can be stopped at any point.
+    @Test
+    public void testDfsIterator() {
+        createExtendedGraph();
+        List<String> visited = new ArrayList<>();
+        graph.dfsIterator("A").forEachRemaining(visited::add);
+        assertEquals(visited, Arrays.asList("A", "B", "C", "D", "E", "F"));
+        assertFalse(graph.dfsIterator("N").hasNext());
+        // The iterator backtracks from D to C, as DFS does on its way to E.
+        assertArrayEquals(graph.DFS("F", "E"), new String[] {"F", "B", "A", "C", "E"});
+        Iterator<String> fromF = graph.dfsIterator("F");
+        Iterator<String> fromE = graph.dfsIterator("E");
+        List<String> visitedFromF = new ArrayList<>();
+        List<String> visitedFromE = new ArrayList<>();
+        // Two iterators advanced in turns, with other searches in between, do not affect each other.
+        // hasNext() does not advance the traversal.
+        while (fromF.hasNext() && fromF.hasNext()) {
+            visitedFromF.add(fromF.next());
+            graph.DFS("D", "F");
+            visitedFromE.add(fromE.next());
+        }
+        assertEquals(visitedFromF, Arrays.asList("F", "B", "A", "C", "D", "E"));
+        assertEquals(visitedFromE, Arrays.asList("E", "A", "B", "C", "D", "F"));
+        assertFalse(fromE.hasNext());
+        try {
+            fromE.next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // Expected.
+        }
+
+        // On a long path, starting in the middle: the traversal goes all the way down to one end, then
+        // backtracks through every node on the way back before it goes on to the other end. It can be stopped
+        // after a few nodes and resumed later.
+        Graph<Integer, Integer> path = new Graph<>();
+        int length = 200000;
+        for (int i = 0; i + 1 < length; i++) {
+            path.addEdge(i, i + 1);
+        }
+        Iterator<Integer> iterator = path.dfsIterator(length / 2);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(iterator.next() == length / 2 - i);
+        }
+        path.DFS(0, length - 1);
+        for (int i = 10; i <= length / 2; i++) {
+            assertTrue(iterator.next() == length / 2 - i);
+        }
+        for (int i = length / 2 + 1; i < length; i++) {
+            assertTrue(iterator.next() == i);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    // Test the parallel BFS on a graph large enough that it switches between top-down and bottom-up.
+    // Distances must match those of a sequential BFS.
+    @Test
+    public void testParallelBFS() {
+        GraphBuilder<Integer, Integer> builder = new GraphBuilder<>();
+        Random random = new Random(42);
+        int size = 20000;
+        for (int i = 0; i < size * 4; i++) {
+            builder.addEdge(random.nextInt(size), random.nextInt(size));
+        }
+        // A long tail, so that the search also goes back to top-down.
+        for (int i = size; i < size + 50; i++) {
+            builder.addEdge(i - 1, i);
+        }
+        FrozenGraph<Integer, Integer> frozen = builder.buildFrozen();
+        int source = frozen.indexOf(0);
+        // Sequential reference distances.
+        int[] expected = new int[frozen.size()];
+        Arrays.fill(expected, -1);
+        int[] queue = new int[frozen.size()];
+        int head = 0;
+        int tail = 0;
+        expected[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = 0; i < frozen.degree(v); i++) {
+                int w = frozen.neighbor(v, i);
+                if (expected[w] < 0) {
+                    expected[w] = expected[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        assertArrayEquals(frozen.parallelDistances(0), expected);
+
+        assertArrayEquals(frozen.parallelBFS(0, size + 49), frozen.BFS(0, size + 49));
+        assertArrayEquals(frozen.parallelBFS(7, 7), new Integer[] {7});
+        assertTrue(frozen.parallelBFS(0, -5).length == 0);
+
+        // The paths are the same as those of BFS, not only as long, on random graphs from sparse (many
+        // components, top-down only) to dense (bottom-up levels).
+        for (int degree : new int[] {1, 3, 8, 30}) {
+            int n = 5000;
+            GraphBuilder<Integer, Integer> erBuilder = new GraphBuilder<>();
+            for (int v = 0; v < n; v++) {
+                erBuilder.addNode(v, null);
+            }
+            for (int e = 0; e < n * degree / 2; e++) {
+                erBuilder.addEdge(random.nextInt(n), random.nextInt(n));
+            }
+            Graph<Integer, Integer> er = erBuilder.build();
+            FrozenGraph<Integer, Integer> snapshot = er.freeze();
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                Integer[] path = er.BFS(from, to);
+                assertArrayEquals(snapshot.parallelBFS(from, to), path);
+                assertArrayEquals(er.parallelBFS(from, to), path);
+            }
+            // The graph snapshot used by parallelBFS follows changes to the graph.
+            er.addEdge(0, n - 1);
+            assertArrayEquals(er.parallelBFS(0, n - 1), new Integer[] {0, n - 1});
+        }
+    }
+
+    // Test batched path queries. Each result must be what BFS returns for that pair, in input order.
+    @Test
+    public void testShortestPaths() {
+        createExtendedGraph();
+        graph.addEdge("X", "Y");
+        assertTrue(graph.shortestPaths(new ArrayList<>()).isEmpty());
+        // Sources in turns, so that the queries of a source are not next to each other, a repeated pair, a
+        // source that is its own destination, destinations in another component or not in the graph, and a
+        // source not in the graph.
+        String[][] pairs = new String[][] {{"A", "F"}, {"F", "A"}, {"A", "E"}, {"F", "F"}, {"A", "F"},
+                {"A", "Y"}, {"F", "N"}, {"N", "A"}, {"X", "Y"}, {"A", "D"}};
+        List<Pair<String, String>> queries = new ArrayList<>();
+        for (String[] pair : pairs) {
+            queries.add(new Pair<>(pair[0], pair[1]));
+        }
+        List<String[]> paths = graph.shortestPaths(queries);
+        assertTrue(paths.size() == queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            assertArrayEquals(paths.get(i), graph.BFS(pairs[i][0], pairs[i][1]));
+        }
+        assertArrayEquals(paths.get(0), new String[] {"A", "B", "F"});
+        assertArrayEquals(paths.get(3), new String[] {"F"});
+        assertTrue(paths.get(5).length == 0 && paths.get(6).length == 0 && paths.get(7).length == 0);
+        // Each query gets an array of its own, also when a pair is repeated.
+        paths.get(0)[1] = "Z";
+        assertArrayEquals(paths.get(4), new String[] {"A", "B", "F"});
+
+        // On a grid, most pairs have many shortest paths. The search shared by all queries from a source
+        // finds the same ones as a BFS for each query on its own, for near and far destinations alike.
+        Graph<Integer, Integer> grid = new Graph<>();
+        int side = 12;
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int v = row * side + col;
+                if (col + 1 < side) {
+                    grid.addEdge(v, v + 1);
+                }
+                if (row + 1 < side) {
+                    grid.addEdge(v, v + side);
+                }
+            }
+        }
+        int[] sources = new int[] {0, 77, side * side - 1, 5};
+        List<Pair<Integer, Integer>> gridQueries = new ArrayList<>();
+        for (int to = side * side - 1; to >= 0; to--) {
+            for (int from : sources) {
+                gridQueries.add(new Pair<>(from, to));
+            }
+        }
+        List<Integer[]> gridPaths = grid.shortestPaths(gridQueries);
+        for (int i = 0; i < gridQueries.size(); i++) {
+            Pair<Integer, Integer> query = gridQueries.get(i);
+            assertArrayEquals(gridPaths.get(i), grid.BFS(query.getFirst(), query.getSecond()));
+        }
+    }
+
+    // Test single-source and multi-source BFS trees.
+    @Test
+    public void testBfsTree() {
+        createExtendedGraph();
+        graph.addEdge("F", "G");
+        graph.addEdge("X", "Y");
+        String[] names = new String[] {"A", "B", "C", "D", "E", "F", "G", "X", "Y", "N"};
+        // With a single source, every path is the one BFS returns.
+        BfsTree<String> tree = graph.bfsTree("A");
+        for (String name : names) {
+            assertArrayEquals(tree.pathTo(name), graph.BFS("A", name));
+            assertTrue(tree.distanceTo(name) == graph.BFS("A", name).length - 1);
+        }
+        assertTrue(tree.reachedCount() == 7);
+        assertFalse(tree.reaches("X"));
+
+        // With several sources, each node is reached from the nearest one.
+        tree = graph.bfsTree(Arrays.asList("D", "G", "N"));
+        assertEquals(tree.sourceOf("F"), "G");
+        assertEquals(tree.sourceOf("A"), "D");
+        assertTrue(tree.distanceTo("B") == 1);
+        assertTrue(tree.distanceTo("G") == 0);
+        assertArrayEquals(tree.pathTo("C"), new String[] {"D", "C"});
+        assertNull(tree.sourceOf("Y"));
+
+        // Node ids are reused once the graph changes, so the tree can no longer be read after any change.
+        BfsTree<String> added = graph.bfsTree("A");
+        graph.addNode("Z", 1);
+        BfsTree<String> removed = graph.bfsTree("A");
+        graph.removeNode("B");
+        for (BfsTree<String> stale : Arrays.asList(added, removed)) {
+            for (Runnable read : new Runnable[] {() -> stale.distanceTo("Z"), () -> stale.pathTo("C"),
+                    () -> stale.sourceOf("D"), () -> stale.reachedCount()}) {
+                try {
+                    read.run();
+                    fail("Expected IllegalStateException");
+                } catch (IllegalStateException e) {
+                    // Expected.
+                }
+            }
+        }
+        assertTrue(graph.bfsTree("A").distanceTo("F") == 2);
+    }
+
+    // Test the path cache: repeated queries are hits, and any change to the graph drops cached paths.
+    @Test
+    public void testPathCache() {
+        createExtendedGraph();
+        graph.enablePathCache(2);
+        PathCache<String> cache = graph.getPathCache();
+        String[] path = graph.BFS("A", "F");
+        assertArrayEquals(graph.BFS("A", "F"), path);
+        assertTrue(cache.getHits() == 1 && cache.getMisses() == 1);
+        // Different algorithms are cached separately.
+        assertArrayEquals(graph.DFS("A", "F"), new String[] {"A", "B", "C", "F"});
+        assertTrue(cache.getMisses() == 2);
+        // Changing the returned array does not change the cached one.
+        graph.BFS("A", "F")[1] = "Z";
+        assertArrayEquals(graph.BFS("A", "F"), path);
+        // The least recently used entry (the DFS path) is evicted when the cache is full.
+        graph.BFS("E", "F");
+        assertTrue(cache.size() == 2);
+        long misses = cache.getMisses();
+        graph.DFS("A", "F");
+        assertTrue(cache.getMisses() == misses + 1);
+
+        // Every change to the graph drops the cached paths, so the next query is a miss that sees the change:
+        // adding a node, adding nodes in bulk, adding an edge, adding edges in bulk, and removing a node.
+        graph.enablePathCache(16);
+        cache = graph.getPathCache();
+        assertTrue(graph.BFS("Z", "Z").length == 0);
+        graph.addNode("Z", 1);
+        assertArrayEquals(graph.BFS("Z", "Z"), new String[] {"Z"});
+        assertTrue(graph.BFS("W", "W").length == 0);
+        graph.addNodes(new String[] {"W"}, new Integer[] {2});
+        assertArrayEquals(graph.BFS("W", "W"), new String[] {"W"});
+        assertTrue(graph.BFS("A", "Z").length == 0);
+        graph.addEdge("F", "Z");
+        assertArrayEquals(graph.BFS("A", "Z"), new String[] {"A", "B", "F", "Z"});
+        graph.addEdges("A", new ArrayList<>(Arrays.asList("W", "Z")));
+        assertArrayEquals(graph.BFS("A", "Z"), new String[] {"A", "Z"});
+        assertArrayEquals(graph.DFS("E", "F"), new String[] {"E", "A", "B", "C", "F"});
+        graph.removeNode("B");
+        assertArrayEquals(graph.DFS("E", "F"), new String[] {"E", "A", "C", "F"});
+        assertTrue(cache.getHits() == 0 && cache.getMisses() == 9);
+        // A change that does nothing, such as adding an edge that is already there, keeps the cached paths.
+        assertFalse(graph.addEdge("A", "Z"));
+        assertFalse(graph.addNode("A", 5));
+        assertArrayEquals(graph.DFS("E", "F"), new String[] {"E", "A", "C", "F"});
+        assertTrue(cache.getHits() == 1);
+
+        // Batched queries are answered from the cache, and fill it for later queries.
+        List<Pair<String, String>> queries = Arrays.asList(new Pair<>("A", "F"), new Pair<>("W", "F"));
+        graph.shortestPaths(queries);
+        assertArrayEquals(graph.BFS("W", "F"), new String[] {"W", "A", "C", "F"});
+        assertTrue(graph.shortestPaths(queries).get(0).length == 3);
+        assertTrue(cache.getHits() == 4);
+        graph.disablePathCache();
+        assertNull(graph.getPathCache());
+    }
+
+    // Test the component index: queries between components fail without searching, and stay correct as
+    // edges are added and nodes removed.
+    @Test
+    public void testIsConnected() {
+        createSimpleGraph();
+        graph.addEdge("K", "L");
+        assertTrue(graph.isConnected("A", "E"));
+        assertTrue(graph.isConnected("A", "A"));
+        assertFalse(graph.isConnected("A", "K"));
+        assertFalse(graph.isConnected("A", "Z"));
+        assertTrue(graph.BFS("A", "K").length == 0);
+        assertTrue(graph.DFS("K", "A").length == 0);
+        assertTrue(graph.bidirectionalBFS("A", "L").length == 0);
+        // Joining the components.
+        graph.addEdge("E", "K");
+        assertTrue(graph.isConnected("L", "A"));
+        assertArrayEquals(graph.BFS("E", "L"), new String[] {"E", "K", "L"});
+        // Removing E splits them again.
+        graph.removeNode("E");
+        assertFalse(graph.isConnected("A", "L"));
+        assertTrue(graph.isConnected("K", "L"));
+        assertTrue(graph.isConnected("A", "D"));
+        assertTrue(graph.BFS("A", "K").length == 0);
+        // The rebuilt index keeps track of later changes.
+        graph.addEdge("D", "L");
+        assertTrue(graph.isConnected("K", "A"));
+        assertArrayEquals(graph.BFS("K", "D"), new String[] {"K", "L", "D"});
+        List<String[]> paths = graph.shortestPaths(Arrays.asList(new Pair<>("K", "A"), new Pair<>("K", "M")));
+        assertTrue(paths.get(0).length > 0 && paths.get(1).length == 0);
+
+        // Graphs built from CSR arrays build their index when first needed.
+        Graph<String, Integer> loaded = graph.freeze().thaw();
+        assertTrue(loaded.isConnected("A", "K"));
+        loaded.addNode("Z", 0);
+        assertFalse(loaded.isConnected("A", "Z"));
+    }
+
+    // Test building a word graph from a plain word list, against the same graph read from a file of ids, words
+    // and neighbor ids built by comparing every pair of words.
+    @Test
+    public void testBuildFromDictionary() throws IOException {
+        Random random = new Random(15);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            char[] word = new char[3 + random.nextInt(2)];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = (char) ('a' + random.nextInt(5));
+            }
+            words.add(new String(word));
+        }
+        words.add("cat");
+        words.add("zzzzzz");
+        StringBuilder adjacency = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            adjacency.append(i).append(' ').append(words.get(i));
+            for (int j = 0; j < words.size(); j++) {
+                String a = words.get(i);
+                String b = words.get(j);
+                int differences = 0;
+                for (int k = 0; a.length() == b.length() && k < a.length(); k++) {
+                    if (a.charAt(k) != b.charAt(k)) {
+                        differences++;
+                    }
+                }
+                if (differences == 1) {
+                    adjacency.append(' ').append(j);
+                }
+            }
+            adjacency.append('\n');
+        }
+        Path dictionary = Files.createTempFile("words", ".txt");
+        Path wordGraph = Files.createTempFile("wordgraph", ".txt");
+        try {
+            // Blank lines and surrounding spaces are skipped.
+            Files.write(dictionary, ("\n" + String.join("\n", words).replace("cat", "  cat ") + "\n\n").getBytes());
+            Files.write(wordGraph, adjacency.toString().getBytes());
+            Graph<Integer, String> built = WordLadders.buildFromDictionary(dictionary);
+            Graph<Integer, String> expected = WordLadders.readWordGraph(wordGraph.toString());
+            List<Vertex<Integer, String>> vertices = built.getVertices();
+            assertTrue(vertices.size() == words.size());
+            assertTrue(built.freeze().edgeCount() == expected.freeze().edgeCount());
+            for (Vertex<Integer, String> vertex : expected.getVertices()) {
+                assertEquals(built.findVertex(vertex.getName()).getData(), vertex.getData());
+                List<Vertex<Integer, String>> actualNeighbors = built.getNeighborsForNode(vertex.getName());
+                List<Vertex<Integer, String>> expectedNeighbors = expected.getNeighborsForNode(vertex.getName());
+                assertTrue(actualNeighbors.size() == expectedNeighbors.size());
+                for (int i = 0; i < expectedNeighbors.size(); i++) {
+                    assertEquals(actualNeighbors.get(i).getName(), expectedNeighbors.get(i).getName());
+                }
+            }
+            // Repeated words map to their last node.
+            HashMap<String, Integer> wordToNode = WordLadders.buildWordToNodeMap(built);
+            for (int i = 0; i < words.size(); i++) {
+                assertTrue(wordToNode.get(words.get(i)) == words.lastIndexOf(words.get(i)));
+            }
+            // Also when the nodes were added out of order.
+            Graph<Integer, String> duplicates = new Graph<>();
+            duplicates.addNode(5, "cat");
+            duplicates.addNode(9, "cat");
+            duplicates.addNode(2, "cat");
+            assertTrue(WordLadders.buildWordToNodeMap(duplicates).get("cat") == 9);
+        } finally {
+            Files.delete(dictionary);
+            Files.delete(wordGraph);
+        }
+    }
+
+    // Test A* search: with a zero estimate and with the Hamming distance between words, it finds paths as
+    // short as those of BFS.
+    @Test
+    public void testAStar() {
+        createSimpleGraph();
+        graph.addEdge("E", "F");
+        graph.addNode("G", 1);
+        assertArrayEquals(graph.aStar("A", "F", (a, b) -> 0), new String[] {"A", "E", "F"});
+        assertArrayEquals(graph.aStar("B", "B", (a, b) -> 0), new String[] {"B"});
+        assertTrue(graph.aStar("A", "G", (a, b) -> 0).length == 0);
+        assertTrue(graph.aStar("A", "Z", (a, b) -> 0).length == 0);
+
+        // A word graph, with Hamming distance as the estimate.
+        Random random = new Random(16);
+        Graph<Integer, String> words = new Graph<>();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            char[] word = new char[4];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = (char) ('a' + random.nextInt(4));
+            }
+            String w = new String(word);
+            if (!list.contains(w)) {
+                words.addNode(list.size(), w);
+                list.add(w);
+            }
+        }
+        for (int i = 0; i < list.size(); i++) {
+            for (int j = i + 1; j < list.size(); j++) {
+                if (WordLadders.hammingDistance(list.get(i), list.get(j)) == 1) {
+                    words.addEdge(i, j);
+                }
+            }
+        }
+        for (int query = 0; query < 200; query++) {
+            int from = random.nextInt(list.size());
+            int to = random.nextInt(list.size());
+            Integer[] path = words.aStar(from, to, WordLadders::hammingDistance);
+            assertTrue(path.length == words.BFS(from, to).length);
+            assertTrue(path[0] == from && path[path.length - 1] == to);
+            for (int i = 1; i < path.length; i++) {
+                assertTrue(WordLadders.hammingDistance(list.get(path[i - 1]), list.get(path[i])) == 1);
+            }
+        }
+
+        // Nodes without data, like neighbor ids that have no line of their own in a word graph file, are
+        // estimated at 0 instead of being passed to the heuristic.
+        words.addEdge(0, list.size());
+        words.addEdge(list.size(), list.size() + 1);
+        assertNull(words.findVertex(list.size()).getData());
+        assertTrue(words.aStar(1, list.size() + 1, WordLadders::hammingDistance).length
+                == words.BFS(1, list.size() + 1).length);
+        assertTrue(words.aStar(list.size() + 1, 1, WordLadders::hammingDistance).length
+                == words.BFS(list.size() + 1, 1).length);
+    }
+
+    // Test landmark distance estimates, and that searches pruned with them still find the same paths.
+    @Test
+    public void testLandmarks() {
+        // A 10 x 10 grid, plus a separate edge.
+        Graph<Integer, Integer> grid = new Graph<>();
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                if (col < 9) {
+                    grid.addEdge(row * 10 + col, row * 10 + col + 1);
+                }
+                if (row < 9) {
+                    grid.addEdge(row * 10 + col, (row + 1) * 10 + col);
+                }
+            }
+        }
+        grid.addEdge(100, 101);
+        try {
+            grid.estimateDistance(0, 99);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        List<Integer[]> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(grid.BFS(i, 99 - i));
+        }
+        grid.precomputeLandmarks(4);
+        DistanceEstimate estimate = grid.estimateDistance(0, 99);
+        assertTrue(estimate.getLower() == 18 && estimate.isExact());
+        assertTrue(grid.estimateDistance(5, 5).getUpper() == 0);
+        assertFalse(grid.estimateDistance(0, 100).isReachable());
+        assertFalse(grid.estimateDistance(0, 1000).isReachable());
+        assertTrue(grid.estimateDistance(100, 101).getUpper() == 1);
+        for (int i = 0; i < 100; i++) {
+            BfsTree<Integer> tree = grid.bfsTree(i);
+            for (int j = 0; j < 100; j += 7) {
+                estimate = grid.estimateDistance(i, j);
+                assertTrue(estimate.getLower() <= tree.distanceTo(j) && tree.distanceTo(j) <= estimate.getUpper());
+            }
+            assertArrayEquals(grid.BFS(i, 99 - i), expected.get(i));
+            assertTrue(grid.aStar(i, 99 - i).length == expected.get(i).length);
+        }
+
+        // Changing the graph makes the landmarks invalid.
+        grid.addEdge(0, 99);
+        try {
+            grid.estimateDistance(0, 99);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertTrue(grid.BFS(0, 99).length == 2);
+        assertTrue(grid.aStar(0, 99).length == 2);
+    }
+
+    // Test the synthetic graph generators, and that their files load to the same graph in both text formats.
+    @Test
+    public void testGraphGenerator() throws IOException {
+        int[] random = GraphGenerator.erdosRenyi(500, 2000, 42);
+        assertArrayEquals(GraphGenerator.erdosRenyi(500, 2000, 42), random);
+        assertTrue(GraphGenerator.build(500, random).freeze().edgeCount() == 2000);
+        int[] powerLaw = GraphGenerator.barabasiAlbert(500, 3, 42);
+        assertArrayEquals(GraphGenerator.barabasiAlbert(500, 3, 42), powerLaw);
+        assertTrue(GraphGenerator.build(500, powerLaw).freeze().edgeCount() == 6 + 496 * 3);
+        assertTrue(GraphGenerator.build(100, GraphGenerator.grid(10, 10)).freeze().edgeCount() == 180);
+        assertTrue(GraphGenerator.grid(1, 1).length == 0 && GraphGenerator.grid(3, 1).length == 4);
+        try {
+            GraphGenerator.grid(50000, 50000);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        List<String> words = GraphGenerator.randomWords(300, 4, 6, 42);
+        assertEquals(GraphGenerator.randomWords(300, 4, 6, 42), words);
+
+        Path adjacency = Files.createTempFile("graph", ".adj");
+        Path wordGraph = Files.createTempFile("graph", ".words");
+        Path dictionary = Files.createTempFile("graph", ".dict");
+        try {
+            int[] edges = GraphGenerator.wordEdges(words);
+            GraphGenerator.writeAdjacencyList(adjacency, words.size(), edges, words::get);
+            GraphGenerator.writeWordGraph(wordGraph, words.size(), edges, words::get);
+            GraphGenerator.writeDictionary(dictionary, words);
+            Graph<String, Object> byName = Graph.read(adjacency.toString());
+            Graph<Integer, String> byId = WordLadders.readWordGraph(wordGraph.toString());
+            Graph<Integer, String> built = WordLadders.buildFromDictionary(dictionary);
+            assertTrue(byName.freeze().edgeCount() == edges.length / 2);
+            assertTrue(byId.freeze().edgeCount() == edges.length / 2);
+            assertTrue(built.freeze().edgeCount() == edges.length / 2);
+            for (int id = 0; id < words.size(); id += 10) {
+                assertEquals(byId.findVertex(id).getData(), words.get(id));
+                List<Vertex<Integer, String>> neighbors = byId.getNeighborsForNode(id);
+                assertTrue(byName.getNeighborsForNode(words.get(id)).size() == neighbors.size());
+                for (Vertex<Integer, String> neighbor : neighbors) {
+                    assertTrue(WordLadders.hammingDistance(words.get(id), words.get(neighbor.getName())) == 1);
+                }
+            }
+        } finally {
+            Files.delete(adjacency);
+            Files.delete(wordGraph);
+            Files.delete(dictionary);
+        }
+    }
+
+    // Test query and load statistics reported to a listener.
+    @Test
+    public void testListener() throws IOException {
+        createSimpleGraph();
+        List<QueryStats> queries = new ArrayList<>();
+        graph.setListener(new GraphListener() {
+            @Override
+            public void onQuery(QueryStats stats) {
+                queries.add(stats);
+            }
+        });
+        graph.BFS("E", "B");
+        QueryStats stats = queries.get(0);
+        assertTrue(stats.getAlgorithm() == SearchAlgorithm.BFS && stats.isFound() && stats.getPathLength() == 3);
+        // E is expanded, which queues A and C, then A, which is next to B.
+        assertTrue(stats.getExpandedNodes() == 2 && stats.getScannedEdges() == 6 && stats.getMaxFrontier() == 2);
+        graph.DFS("A", "Z");
+        assertTrue(queries.get(1).getAlgorithm() == SearchAlgorithm.DFS && !queries.get(1).isFound());
+        graph.enablePathCache(4);
+        graph.bidirectionalBFS("D", "E");
+        graph.bidirectionalBFS("D", "E");
+        assertFalse(queries.get(2).isCacheHit());
+        assertTrue(queries.get(3).isCacheHit() && queries.get(3).getExpandedNodes() == 0);
+        assertTrue(queries.get(2).getExpandedNodes() > 0 && queries.get(3).getPathLength() == 3);
+        // Each query of a batch is reported on its own. The search shared by the queries of a source is
+        // counted in the first of them, and a repeated pair is a cache hit.
+        graph.shortestPaths(Arrays.asList(new Pair<>("A", "E"), new Pair<>("A", "D"), new Pair<>("A", "E")));
+        assertTrue(queries.size() == 7 && queries.get(4).getAlgorithm() == SearchAlgorithm.BFS);
+        assertTrue(queries.get(4).getExpandedNodes() > 0 && queries.get(5).getExpandedNodes() == 0);
+        assertTrue(!queries.get(5).isCacheHit() && queries.get(6).isCacheHit());
+
+        GraphMetrics metrics = new GraphMetrics();
+        graph.setListener(metrics);
+        graph.aStar("A", "B", (a, b) -> 0);
+        graph.aStar("A", "B");
+        for (int i = 0; i < 10; i++) {
+            graph.BFS("E", "B");
+        }
+        assertTrue(metrics.getQueryCount(SearchAlgorithm.A_STAR) == 2);
+        assertTrue(metrics.getFoundCount(SearchAlgorithm.A_STAR) == 2);
+        assertTrue(metrics.getQueryCount(SearchAlgorithm.BFS) == 10);
+        assertTrue(metrics.getCacheHitCount(SearchAlgorithm.BFS) == 9);
+        assertTrue(metrics.getLatencyPercentile(SearchAlgorithm.BFS, 0.99) > 0);
+        assertTrue(metrics.getLatencyPercentile(SearchAlgorithm.DFS, 0.99) == 0);
+        assertTrue(metrics.snapshot().get("bfs.queries") == 10);
+        assertFalse(metrics.snapshot().containsKey("dfs.queries"));
+        graph.setListener(null);
+        graph.BFS("A", "B");
+        assertTrue(metrics.getQueryCount(SearchAlgorithm.BFS) == 10);
+
+        // Loading.
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.write(file, Arrays.asList("P Q R", "Q R", "S"));
+            Graph<String, Integer> loaded = Graph.read(file.toString(), metrics);
+            assertTrue(metrics.getLoadCount() == 1);
+            assertTrue(metrics.getLastLoadVertices() == 3 && metrics.getLastLoadEdges() == 3);
+            loaded.DFS("P", "R");
+            assertTrue(metrics.getQueryCount(SearchAlgorithm.DFS) == 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Test removal with tombstones: searches step over removed nodes until the graph is compacted, and bulk
+    // removal, one by one removal and removal with deferred compaction all give the same graph.
+    @Test
+    public void testRemoveNodesWithTombstones() {
+        createSimpleGraph();
+        graph.setCompactionThreshold(0.4);
+        assertTrue(graph.removeNode("C"));
+        assertTrue(graph.getTombstoneCount() == 1);
+        assertTrue(graph.getVertices().size() == 4);
+        checkForDeletedNeighbor("A", "C");
+        assertFalse(graph.isConnected("C", "A"));
+        assertArrayEquals(graph.BFS("E", "B"), new String[] {"E", "A", "B"});
+        assertArrayEquals(graph.DFS("E", "D"), new String[] {"E", "A", "B", "D"});
+        // A new node may take the name of a removed one.
+        assertTrue(graph.addEdge("C", "E"));
+        assertTrue(graph.getNeighborsForNode("E").size() == 2);
+        assertArrayEquals(graph.BFS("C", "B"), new String[] {"C", "E", "A", "B"});
+        // Three tombstones out of six nodes passes the threshold, so the graph is compacted.
+        assertFalse(graph.removeNodes(Arrays.asList("C", "D", "Z")));
+        assertTrue(graph.getTombstoneCount() == 0);
+        assertTrue(graph.getVertices().size() == 3);
+        assertTrue(graph.freeze().edgeCount() == 2);
+        // Removing nodes in bulk drops cached paths, and so does compaction, which renumbers the nodes.
+        graph.addEdges("X", new ArrayList<>(Arrays.asList("B", "E")));
+        graph.enablePathCache(8);
+        assertArrayEquals(graph.BFS("B", "E"), new String[] {"B", "A", "E"});
+        assertTrue(graph.removeNodes(Arrays.asList("A")));
+        assertTrue(graph.getTombstoneCount() == 1);
+        assertArrayEquals(graph.BFS("B", "E"), new String[] {"B", "X", "E"});
+        graph.compact();
+        assertArrayEquals(graph.BFS("B", "E"), new String[] {"B", "X", "E"});
+        assertTrue(graph.getPathCache().getHits() == 0 && graph.getPathCache().getMisses() == 3);
+
+        int[] edges = GraphGenerator.erdosRenyi(300, 1200, 7);
+        Graph<Integer, String> single = GraphGenerator.build(300, edges);
+        Graph<Integer, String> bulk = GraphGenerator.build(300, edges);
+        Graph<Integer, String> deferred = GraphGenerator.build(300, edges);
+        deferred.setCompactionThreshold(0.25);
+        List<Integer> removed = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 150; i++) {
+            removed.add(random.nextInt(300));
+        }
+        for (int name : removed) {
+            single.removeNode(name);
+            deferred.removeNode(name);
+        }
+        bulk.removeNodes(removed);
+        assertTrue(deferred.getTombstoneCount() > 0);
+        for (int from = 0; from < 300; from += 7) {
+            for (int to = 1; to < 300; to += 11) {
+                assertArrayEquals(single.BFS(from, to), deferred.BFS(from, to));
+                assertArrayEquals(single.DFS(from, to), deferred.DFS(from, to));
+                assertTrue(single.isConnected(from, to) == deferred.isConnected(from, to));
+            }
+        }
+        deferred.compact();
+        for (Vertex<Integer, String> vertex : single.getVertices()) {
+            List<Vertex<Integer, String>> neighbors = single.getNeighborsForNode(vertex.getName());
+            List<Vertex<Integer, String>> bulkNeighbors = bulk.getNeighborsForNode(vertex.getName());
+            List<Vertex<Integer, String>> deferredNeighbors = deferred.getNeighborsForNode(vertex.getName());
+            assertTrue(neighbors.size() == bulkNeighbors.size() && neighbors.size() == deferredNeighbors.size());
+            for (int i = 0; i < neighbors.size(); i++) {
+                assertEquals(neighbors.get(i).getName(), bulkNeighbors.get(i).getName());
+                assertEquals(neighbors.get(i).getName(), deferredNeighbors.get(i).getName());
+            }
+        }
+        assertTrue(single.getVertices().size() == bulk.getVertices().size());
+        assertTrue(single.getVertices().size() == deferred.getVertices().size());
+    }
+
+    // Test the queries that write paths to a reusable buffer: they find the same paths as the ones returning
+    // arrays, and a buffer can be reused for paths of any length.
+    @Test
+    public void testPathBuffer() {
+        createSimpleGraph();
+        PathBuffer<String> path = new PathBuffer<>(1);
+        assertTrue(graph.BFS("E", "B", path));
+        assertTrue(path.size() == 3 && path.get(0).equals("E") && path.get(2).equals("B"));
+        assertEquals(path.toString(), Arrays.toString(graph.BFS("E", "B")));
+        assertTrue(graph.DFS("A", "A", path));
+        assertTrue(path.size() == 1 && path.get(0).equals("A"));
+        assertFalse(graph.bidirectionalBFS("A", "Z", path));
+        assertTrue(path.isEmpty());
+        // Answered from the cache the second time.
+        graph.enablePathCache(4);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(graph.DFS("E", "D", path));
+            assertEquals(path.toString(), Arrays.toString(graph.DFS("E", "D")));
+        }
+        assertTrue(graph.getPathCache().getHits() > 0);
+
+        int[] edges = GraphGenerator.erdosRenyi(300, 600, 11);
+        Graph<Integer, String> random = GraphGenerator.build(300, edges);
+        FrozenGraph<Integer, String> frozen = random.freeze();
+        PathBuffer<Integer> buffer = new PathBuffer<>();
+        for (int from = 0; from < 300; from += 13) {
+            for (int to = 0; to < 300; to += 7) {
+                assertTrue(random.BFS(from, to, buffer) == random.BFS(from, to).length > 0);
+                assertEquals(buffer.toString(), Arrays.toString(random.BFS(from, to)));
+                random.DFS(from, to, buffer);
+                assertEquals(buffer.toString(), Arrays.toString(random.DFS(from, to)));
+                random.bidirectionalBFS(from, to, buffer);
+                assertEquals(buffer.toString(), Arrays.toString(random.bidirectionalBFS(from, to)));
+                frozen.BFS(from, to, buffer);
+                assertEquals(buffer.toString(), Arrays.toString(frozen.BFS(from, to)));
+                frozen.DFS(from, to, buffer);
+                assertEquals(buffer.toString(), Arrays.toString(frozen.DFS(from, to)));
+            }
+        }
+    }
+
+    // Test the lazy traversal, vertex and neighbor views, and their streams.
+    @Test
+    public void testStreams() {
+        createExtendedGraph();
+        graph.addEdge("X", "Y");
+        assertFalse(graph.bfsIterator("N").hasNext());
+        assertEquals(graph.bfsStream("F").limit(3).collect(Collectors.toList()), Arrays.asList("F", "B", "C"));
+        assertEquals(graph.bfsStream("A").collect(Collectors.toList()),
+                Arrays.asList("A", "B", "C", "D", "E", "F"));
+        assertEquals(graph.dfsStream("F").collect(Collectors.toList()),
+                Arrays.asList("F", "B", "A", "C", "D", "E"));
+        assertEquals(graph.neighborStream("C").collect(Collectors.toList()),
+                Arrays.asList("A", "B", "D", "E", "F"));
+        assertTrue(graph.neighborStream("N").count() == 0);
+        graph.addNode("A", 30);
+        assertTrue(graph.vertexStream().filter(vertex -> vertex.getName().equals("A"))
+                .findFirst().get().getData() == 30);
+
+        // Removed nodes still waiting for compaction are skipped by every view.
+        graph.setCompactionThreshold(0.9);
+        graph.removeNode("B");
+        assertTrue(graph.getTombstoneCount() == 1);
+        assertEquals(graph.bfsStream("A").collect(Collectors.toList()),
+                Arrays.asList("A", "C", "D", "E", "F"));
+        assertEquals(graph.dfsStream("F").collect(Collectors.toList()),
+                Arrays.asList("F", "C", "A", "D", "E"));
+        assertTrue(graph.bfsStream("B").count() == 0 && graph.dfsStream("B").count() == 0);
+        assertEquals(graph.neighborStream("A").collect(Collectors.toList()), Arrays.asList("C", "D", "E"));
+        List<String> live = Arrays.asList("A", "C", "D", "E", "F", "X", "Y");
+        assertEquals(graph.vertexStream().map(Vertex::getName).sorted().collect(Collectors.toList()), live);
+
+        // The vertex spliterator splits down to single nodes, and the parts together give every node once,
+        // whether read with tryAdvance or forEachRemaining. Its size is only exact without tombstones.
+        for (boolean oneByOne : new boolean[] {false, true}) {
+            Spliterator<Vertex<String, Integer>> whole = graph.vertexStream().spliterator();
+            assertFalse(whole.hasCharacteristics(Spliterator.SIZED));
+            List<Spliterator<Vertex<String, Integer>>> parts = new ArrayList<>();
+            parts.add(whole);
+            for (int i = 0; i < parts.size(); i++) {
+                Spliterator<Vertex<String, Integer>> prefix;
+                while ((prefix = parts.get(i).trySplit()) != null) {
+                    parts.add(prefix);
+                }
+                assertTrue(parts.get(i).estimateSize() <= 1);
+            }
+            assertTrue(parts.size() == live.size() + 1);
+            List<String> names = new ArrayList<>();
+            for (Spliterator<Vertex<String, Integer>> part : parts) {
+                if (oneByOne) {
+                    while (part.tryAdvance(vertex -> names.add(vertex.getName()))) {
+                        assertTrue(part.estimateSize() == 0);
+                    }
+                } else {
+                    part.forEachRemaining(vertex -> names.add(vertex.getName()));
+                }
+            }
+            names.sort(null);
+            assertEquals(names, live);
+        }
+        graph.compact();
+        Spliterator<Vertex<String, Integer>> whole = graph.vertexStream().spliterator();
+        assertTrue(whole.hasCharacteristics(Spliterator.SIZED) && whole.estimateSize() == live.size());
+        assertTrue(graph.vertexStream().parallel().count() == live.size());
+
+        // On a long path, traversals stop where the stream stops, and iterators keep their own state, so two
+        // of them can be advanced in turns.
+        Graph<Integer, Integer> path = new Graph<>();
+        int length = 200000;
+        for (int i = 0; i + 1 < length; i++) {
+            path.addEdge(i, i + 1);
+        }
+        assertEquals(path.dfsStream(length / 2).limit(3).collect(Collectors.toList()),
+                Arrays.asList(length / 2, length / 2 - 1, length / 2 - 2));
+        assertEquals(path.bfsStream(length / 2).limit(3).collect(Collectors.toList()),
+                Arrays.asList(length / 2, length / 2 - 1, length / 2 + 1));
+        Iterator<Integer> bfs = path.bfsIterator(0);
+        Iterator<Integer> dfs = path.dfsIterator(length - 1);
+        for (int i = 0; i < length; i++) {
+            assertTrue(bfs.next() == i && dfs.next() == length - 1 - i);
+        }
+        assertFalse(bfs.hasNext() || dfs.hasNext());
+    }
+
+    // Test the accessors that read node data and neighbors in place.
+    @Test
+    public void testForEachNeighbor() {
+        createSimpleGraph();
+        graph.addNode("A", 30);
+        graph.addNode("F", 6);
+        assertTrue(graph.getData("A") == 30);
+        assertNull(graph.getData("B"));
+        assertNull(graph.getData("Z"));
+        assertTrue(graph.contains("F") && !graph.contains("Z"));
+        assertTrue(graph.degree("A") == 4 && graph.degree("F") == 0 && graph.degree("Z") == 0);
+        List<String> names = new ArrayList<>();
+        graph.forEachNeighbor("B", (name, data) -> names.add(name));
+        assertEquals(names, Arrays.asList("A", "C", "D"));
+        graph.forEachNeighbor("Z", (name, data) -> fail());
+        int[] total = new int[2];
+        graph.forEachVertex((name, data) -> {
+            total[0]++;
+            total[1] += data == null ? 0 : data;
+        });
+        assertTrue(total[0] == 6 && total[1] == 36);
+        // Removed nodes are skipped, also while they are tombstones.
+        graph.setCompactionThreshold(0.9);
+        graph.removeNode("A");
+        names.clear();
+        graph.forEachNeighbor("B", (name, data) -> names.add(name));
+        assertEquals(names, Arrays.asList("C", "D"));
+        assertTrue(graph.degree("B") == 2);
+        total[0] = 0;
+        graph.forEachVertex((name, data) -> total[0]++);
+        assertTrue(total[0] == 5);
+    }
+
+    // Test weighted edges and Dijkstra's algorithm, with small weights (bucket queue) and large weights (binary
+    // heap), against distances computed by relaxing every edge until nothing changes.
+    @Test
+    public void testShortestWeightedPath() {
+        graph = new Graph<>();
+        assertTrue(graph.addEdge("A", "B", 5));
+        assertTrue(graph.addEdge("B", "C", 1));
+        assertTrue(graph.addEdge("A", "C", 10));
+        assertTrue(graph.addEdge("C", "D"));
+        assertFalse(graph.addEdge("B", "A", 2));
+        assertTrue(graph.getWeight("B", "A") == 5 && graph.getWeight("D", "C") == 1);
+        assertTrue(graph.getWeight("A", "D") == -1 && graph.getWeight("A", "Z") == -1);
+        assertArrayEquals(graph.shortestWeightedPath("A", "D"), new String[] {"A", "B", "C", "D"});
+        assertArrayEquals(graph.BFS("A", "D"), new String[] {"A", "C", "D"});
+        assertTrue(graph.shortestWeightedPath("A", "Z").length == 0);
+        assertTrue(graph.shortestWeightedPath("A", "A").length == 1);
+        try {
+            graph.addEdge("A", "E", -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(graph.contains("E"));
+        }
+
+        int n = 200;
+        int[] edges = GraphGenerator.erdosRenyi(n, 500, 3);
+        for (int maxWeight : new int[] {9, 1000}) {
+            Random random = new Random(maxWeight);
+            int[] weights = new int[edges.length / 2];
+            Graph<Integer, String> weighted = new Graph<>();
+            for (int e = 0; e < weights.length; e++) {
+                weights[e] = random.nextInt(maxWeight + 1);
+                weighted.addEdge(edges[2 * e], edges[2 * e + 1], weights[e]);
+            }
+            // Removing nodes must keep every remaining edge with its own weight.
+            weighted.removeNode(edges[0]);
+            weighted.setCompactionThreshold(0.01);
+            weighted.removeNode(edges[1]);
+            weighted.removeNode(edges[2]);
+            weighted.setCompactionThreshold(0);
+            boolean[] removed = new boolean[n];
+            removed[edges[0]] = removed[edges[1]] = removed[edges[2]] = true;
+            long[][] dist = new long[n][n];
+            for (long[] row : dist) {
+                Arrays.fill(row, Long.MAX_VALUE);
+            }
+            for (int v = 0; v < n; v++) {
+                dist[v][v] = 0;
+            }
+            for (int e = 0; e < weights.length; e++) {
+                int a = edges[2 * e];
+                int b = edges[2 * e + 1];
+                if (!removed[a] && !removed[b]) {
+                    assertTrue(weighted.getWeight(a, b) == weights[e] && weighted.getWeight(b, a) == weights[e]);
+                    dist[a][b] = Math.min(dist[a][b], weights[e]);
+                    dist[b][a] = dist[a][b];
+                }
+            }
+            for (int k = 0; k < n; k++) {
+                for (int a = 0; a < n; a++) {
+                    for (int b = 0; b < n; b++) {
+                        if (dist[a][k] != Long.MAX_VALUE && dist[k][b] != Long.MAX_VALUE) {
+                            dist[a][b] = Math.min(dist[a][b], dist[a][k] + dist[k][b]);
+                        }
+                    }
+                }
+            }
+            PathBuffer<Integer> path = new PathBuffer<>();
+            for (int from = 3; from < n; from += 9) {
+                for (int to = 0; to < n; to += 4) {
+                    boolean found = weighted.shortestWeightedPath(from, to, path);
+                    if (!weighted.contains(from) || !weighted.contains(to) || dist[from][to] == Long.MAX_VALUE) {
+                        assertFalse(found);
+                        continue;
+                    }
+                    assertTrue(found && path.get(0) == from && path.get(path.size() - 1) == to);
+                    long cost = 0;
+                    for (int i = 1; i < path.size(); i++) {
+                        cost += weighted.getWeight(path.get(i - 1), path.get(i));
+                    }
+                    assertTrue(cost == dist[from][to]);
+                }
+            }
+        }
+    }
+
+
+    // Test that edge weights are kept by freeze, thaw, save and load.
+    @Test
+    public void testSaveAndLoadWeighted() throws IOException {
+        int n = 100;
+        int[] edges = GraphGenerator.erdosRenyi(n, 300, 5);
+        Random random = new Random(5);
+        Graph<Integer, String> weighted = new Graph<>();
+        for (int e = 0; e < edges.length; e += 2) {
+            weighted.addEdge(edges[e], edges[e + 1], random.nextInt(20));
+        }
+        // Tombstones and their edges must not shift the weights of the other edges.
+        weighted.setCompactionThreshold(0.5);
+        weighted.removeNode(edges[0]);
+        FrozenGraph<Integer, String> frozen = weighted.freeze();
+        for (int id = 0; id < frozen.size(); id++) {
+            for (int i = 0; i < frozen.degree(id); i++) {
+                Integer neighbor = frozen.key(frozen.neighbor(id, i));
+                assertTrue(frozen.weight(id, i) == weighted.getWeight(frozen.key(id), neighbor));
+            }
+        }
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            weighted.save(file);
+            Graph<Integer, String> loaded = Graph.load(file);
+            for (int e = 0; e < edges.length; e += 2) {
+                assertTrue(loaded.getWeight(edges[e], edges[e + 1]) == weighted.getWeight(edges[e], edges[e + 1]));
+            }
+            for (int from = 1; from < n; from += 7) {
+                for (int to = 0; to < n; to += 3) {
+                    assertArrayEquals(loaded.shortestWeightedPath(from, to), weighted.shortestWeightedPath(from, to));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
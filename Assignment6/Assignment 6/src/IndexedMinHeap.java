@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+// Binary min-heap of vertex ids 0..capacity-1 with long priorities, kept in primitive arrays.
+// Each id is in the heap at most once, and the heap knows where every id sits, so the priority of an id
+// already in the heap can be lowered in O(log n) (decrease-key) instead of inserting a second copy.
+// A heap can be reused for many searches: ids leave the heap as they are polled, and clear() removes the
+// rest, so only the ids that were actually used are touched.
+final class IndexedMinHeap implements IndexedPriorityQueue {
+    // Ids in heap order: heap[i] is no greater than heap[2i+1] and heap[2i+2].
+    private int[] heap;
+
+    // Priority of each id in the heap, indexed by id.
+    private long[] priority;
+
+    // position[id] is the index of id in heap, or -1 if id is not in the heap.
+    private int[] position;
+
+    private int size;
+
+    // Constructs an empty heap for ids 0..capacity-1.
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        priority = new long[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    // Returns the number of ids the heap can hold.
+    int capacity() {
+        return position.length;
+    }
+
+    // Returns whether the heap is empty.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the number of ids in the heap.
+    public int size() {
+        return size;
+    }
+
+    // Returns whether id is in the heap.
+    boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    // Returns the priority of id, which must be in the heap.
+    long priority(int id) {
+        return priority[id];
+    }
+
+    // Adds id with the given priority, or lowers its priority if it is in the heap already with a higher one.
+    // Returns false if id was already in the heap with the same or a lower priority.
+    public boolean offer(int id, long newPriority) {
+        int index = position[id];
+        if (index < 0) {
+            index = size++;
+        } else if (newPriority >= priority[id]) {
+            return false;
+        }
+        priority[id] = newPriority;
+        siftUp(id, index);
+        return true;
+    }
+
+    // Returns the priority of the id with the lowest priority. The heap must not be empty.
+    long peekPriority() {
+        return priority[heap[0]];
+    }
+
+    // Removes and returns the id with the lowest priority. The heap must not be empty.
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(heap[size], 0);
+        }
+        return min;
+    }
+
+    // Removes all ids from the heap.
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    // Moves id up from index until its parent has no greater priority, and stores it there.
+    private void siftUp(int id, int index) {
+        long key = priority[id];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (priority[parent] <= key) {
+                break;
+            }
+            heap[index] = parent;
+            position[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    // Moves id down from index until no child has a lower priority, and stores it there.
+    private void siftDown(int id, int index) {
+        long key = priority[id];
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            int child = heap[childIndex];
+            if (childIndex + 1 < size && priority[heap[childIndex + 1]] < priority[child]) {
+                childIndex++;
+                child = heap[childIndex];
+            }
+            if (key <= priority[child]) {
+                break;
+            }
+            heap[index] = child;
+            position[child] = index;
+            index = childIndex;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+}
@@ -0,0 +1,21 @@
+// Priority queue of vertex ids with long priorities, in which each id is at most once, and the priority of
+// an id already in the queue can be lowered (decrease-key). Implemented by IndexedMinHeap for any
+// priorities, and by BucketQueue for the small, monotone integer priorities of Dijkstra's algorithm with
+// small edge weights.
+interface IndexedPriorityQueue {
+    // Returns whether the queue is empty.
+    boolean isEmpty();
+
+    // Returns the number of ids in the queue.
+    int size();
+
+    // Adds id with the given priority, or lowers its priority if it is in the queue already with a higher one.
+    // Returns false if id was already in the queue with the same or a lower priority.
+    boolean offer(int id, long newPriority);
+
+    // Removes and returns an id with the lowest priority. The queue must not be empty.
+    int poll();
+
+    // Removes all ids from the queue.
+    void clear();
+}
@@ -0,0 +1,256 @@
+import java.util.Arrays;
+
+// Implements an undirected, unweighted graph whose vertex names are ints.
+// This is a specialization of Graph<Integer, V> that never boxes vertex names: vertices are stored in arrays
+// indexed directly by their id, neighbor lists are sorted int arrays, and paths are returned as int[].
+// Ids must be non-negative and are expected to be dense (0..n-1, as in word graph files), since storage
+// grows to the largest id seen.
+public class IntGraph<V> {
+    private static final int[] EMPTY = new int[0];
+
+    // Whether a vertex with the given id exists.
+    private boolean[] present;
+
+    // Data associated with each vertex, indexed by id.
+    private Object[] data;
+
+    // Neighbor ids of each vertex, sorted in increasing order. Only the first degree[id] entries are used.
+    private int[][] neighbors;
+
+    // Number of neighbors of each vertex.
+    private int[] degree;
+
+    // Number of vertices in the graph.
+    private int size;
+
+    // Constructs an empty graph.
+    public IntGraph() {
+        this(16);
+    }
+
+    // Constructs an empty graph with room for vertex ids 0..capacity-1 before any storage has to grow.
+    public IntGraph(int capacity) {
+        capacity = Math.max(capacity, 1);
+        present = new boolean[capacity];
+        data = new Object[capacity];
+        neighbors = new int[capacity][];
+        degree = new int[capacity];
+    }
+
+    // Returns the number of vertices in the graph.
+    public int size() {
+        return size;
+    }
+
+    // Returns whether the graph has a vertex with the given id.
+    public boolean contains(int id) {
+        return id >= 0 && id < present.length && present[id];
+    }
+
+    // Returns the data associated with the given vertex, or null if the vertex does not exist.
+    @SuppressWarnings("unchecked")
+    public V getData(int id) {
+        return contains(id) ? (V) data[id] : null;
+    }
+
+    // Returns the ids of all vertices, in increasing order.
+    public int[] getVertices() {
+        int[] ids = new int[size];
+        int index = 0;
+        for (int id = 0; id < present.length; id++) {
+            if (present[id]) {
+                ids[index++] = id;
+            }
+        }
+        return ids;
+    }
+
+    // Returns the neighbor ids of the given vertex, in increasing order.
+    public int[] getNeighbors(int id) {
+        if (!contains(id)) {
+            return EMPTY;
+        }
+        return Arrays.copyOf(neighbors[id], degree[id]);
+    }
+
+    // Adds a new node with id and data to the graph. If duplicate found returns false.
+    // In case of duplicate, sets the data associated with id, if there was no data (meaning null)
+    // previously set for that node.
+    public boolean addNode(int id, V nodeData) {
+        if (contains(id)) {
+            if (data[id] == null) {
+                data[id] = nodeData;
+            }
+            return false;
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("Vertex id should be non-negative: " + id);
+        }
+        ensureCapacity(id + 1);
+        present[id] = true;
+        data[id] = nodeData;
+        neighbors[id] = EMPTY;
+        size++;
+        return true;
+    }
+
+    // Adds an undirected edge between "from" and "to", creating the nodes if not present.
+    // Returns false if the edge is a loop or already exists.
+    public boolean addEdge(int from, int to) {
+        addNode(from, null);
+        addNode(to, null);
+        // Add two edges, from -> to and to -> from.
+        if (!addDirectedEdge(from, to)) {
+            return false;
+        }
+        return addDirectedEdge(to, from);
+    }
+
+    // Adds undirected edges between "from" and all nodes in "toList".
+    // Returns false if any of them was a duplicate, but still tries to add the remaining edges.
+    public boolean addEdges(int from, int[] toList) {
+        boolean result = true;
+        for (int to : toList) {
+            if (!addEdge(from, to)) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    // Adds an edge in one direction from "from" to "to", keeping the neighbor list sorted.
+    // Returns false if duplicate is found.
+    private boolean addDirectedEdge(int from, int to) {
+        // Check for a loop.
+        if (from == to) {
+            return false;
+        }
+        int[] list = neighbors[from];
+        int count = degree[from];
+        int index = Arrays.binarySearch(list, 0, count, to);
+        if (index >= 0) {
+            // Duplicate edge found.
+            return false;
+        }
+        index = -index - 1;
+        if (count == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, count * 2));
+            neighbors[from] = list;
+        }
+        // Move the following elements by one position to make room.
+        System.arraycopy(list, index, list, index + 1, count - index);
+        list[index] = to;
+        degree[from] = count + 1;
+        return true;
+    }
+
+    // Grows the vertex arrays so that ids up to capacity - 1 can be stored.
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, present.length * 2);
+        present = Arrays.copyOf(present, newCapacity);
+        data = Arrays.copyOf(data, newCapacity);
+        neighbors = Arrays.copyOf(neighbors, newCapacity);
+        degree = Arrays.copyOf(degree, newCapacity);
+    }
+
+    // Finds a path between node from and node to using Breadth First search, as an array of node ids.
+    // Returns 0 length array if no path exists.
+    public int[] BFS(int from, int to) {
+        // If either from node or to node are not found in the graph, return empty array.
+        if (!contains(from) || !contains(to)) {
+            return EMPTY;
+        }
+        // If from and to are the same, return an array with one node.
+        if (from == to) {
+            return new int[] {from};
+        }
+        // Get this thread's search state, with no vertex visited yet. Each vertex enters the queue at most once.
+        SearchState state = SearchState.acquire(present.length);
+        int[] queue = state.queue;
+        int head = 0;
+        int tail = 0;
+        state.visit(from, from);
+        queue[tail++] = from;
+        while (head < tail) {
+            int v = queue[head++];
+            int[] list = neighbors[v];
+            for (int i = 0, count = degree[v]; i < count; i++) {
+                int neighbor = list[i];
+                if (!state.isVisited(neighbor)) {
+                    state.visit(neighbor, v);
+                    // Check if we found the destination node.
+                    if (neighbor == to) {
+                        return constructPath(from, to, state);
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return EMPTY;
+    }
+
+    // Finds a path between node from and node to using Depth First search, as an array of node ids.
+    // Returns 0 length array if no path exists.
+    // Visits the vertices in the same order as Graph.DFS, with an explicit stack instead of recursion.
+    public int[] DFS(int from, int to) {
+        // If either from node or to node are not found in the graph, return empty array.
+        if (!contains(from) || !contains(to)) {
+            return EMPTY;
+        }
+        // If from and to are the same, return an array with one node.
+        if (from == to) {
+            return new int[] {from};
+        }
+        // Each stack frame holds a vertex and the position of the next neighbor to look at.
+        SearchState state = SearchState.acquire(present.length);
+        int[] stackVertex = state.queue;
+        int[] stackNext = state.cursor;
+        int depth = 0;
+        state.visit(from, from);
+        stackVertex[0] = from;
+        stackNext[0] = 0;
+        while (depth >= 0) {
+            int v = stackVertex[depth];
+            int next = stackNext[depth];
+            if (next == degree[v]) {
+                // All neighbors done, backtrack.
+                depth--;
+                continue;
+            }
+            stackNext[depth] = next + 1;
+            int neighbor = neighbors[v][next];
+            // Check if we reached the destination.
+            if (neighbor == to) {
+                state.setParent(neighbor, v);
+                return constructPath(from, to, state);
+            }
+            // If neighbor not visited, go depth first looking for the destination.
+            if (!state.isVisited(neighbor)) {
+                state.visit(neighbor, v);
+                depth++;
+                stackVertex[depth] = neighbor;
+                stackNext[depth] = 0;
+            }
+        }
+        return EMPTY;
+    }
+
+    // Returns the path from source to destination as an array of node ids, following the parent
+    // links recorded during the search.
+    private static int[] constructPath(int from, int to, SearchState state) {
+        int length = 1;
+        for (int v = to; v != from; v = state.parent(v)) {
+            length++;
+        }
+        int[] path = new int[length];
+        int index = length - 1;
+        for (int v = to; v != from; v = state.parent(v)) {
+            path[index--] = v;
+        }
+        path[0] = from;
+        return path;
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.Arrays;
+
+// Growable int array, for collecting ids and edges without boxing.
+final class IntList {
+    int[] values;
+    int size;
+
+    IntList() {
+        this(64);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+}
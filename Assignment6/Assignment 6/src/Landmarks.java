@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+// Distances from a few landmark vertices to every vertex of a graph, for the ALT (A*, landmarks, triangle
+// inequality) technique. For any landmark L and vertices a and b, the triangle inequality gives
+//     |d(L, a) - d(L, b)| <= d(a, b) <= d(L, a) + d(L, b)
+// so a handful of distance arrays bound the distance between any two vertices in O(k) time, without
+// searching. The lower bound is an admissible A* estimate, and both bounds let Breadth First search skip
+// vertices that can not be on a shortest path.
+// Vertices are identified by their ids in the graph, so the tables are only valid for the version of the
+// graph they were computed on.
+final class Landmarks {
+    // Marks an unreachable vertex in the distance tables.
+    private static final int UNREACHED = -1;
+
+    // Ids of the landmark vertices.
+    private final int[] ids;
+
+    // distance[i][v] is the number of edges from landmark i to vertex v, or UNREACHED.
+    private final int[][] distance;
+
+    // Version (modification count) of the graph the tables were computed on.
+    private final int version;
+
+    private Landmarks(int[] ids, int[][] distance, int version) {
+        this.ids = ids;
+        this.distance = distance;
+        this.version = version;
+    }
+
+    // Chooses up to count landmarks among vertex ids 0..size-1 and computes their distance tables.
+    // distancesFrom(v) returns the distance from v to every vertex, -1 for unreachable ones.
+    // Landmarks are spread out by farthest-point selection: start from the vertex farthest from the first
+    // vertex with neighbors, then repeatedly take the vertex farthest from all landmarks chosen so far.
+    // A vertex that no landmark reaches counts as infinitely far, so every component with edges gets a
+    // landmark before any component gets a second one. Vertices without neighbors are never chosen, since
+    // they bound nothing.
+    static Landmarks select(int size, int count, int version, IntUnaryOperator degree,
+                            IntFunction<int[]> distancesFrom) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Number of landmarks should be non-negative: " + count);
+        }
+        // nearest[v] is the distance from v to the nearest landmark, or MAX_VALUE if none reaches v.
+        int[] nearest = new int[size];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int[] ids = new int[count];
+        int[][] distance = new int[count][];
+        int chosen = 0;
+        int start = 0;
+        while (start < size && degree.applyAsInt(start) == 0) {
+            start++;
+        }
+        if (start == size) {
+            return new Landmarks(new int[0], new int[0][], version);
+        }
+        int[] fromStart = distancesFrom.apply(start);
+        while (chosen < count) {
+            int best = -1;
+            long bestScore = -1;
+            for (int v = 0; v < size; v++) {
+                if (degree.applyAsInt(v) == 0 || nearest[v] == 0) {
+                    continue;
+                }
+                // For the first landmark, the vertex farthest from the start vertex wins.
+                long score = chosen == 0 ? fromStart[v] : nearest[v];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = v;
+                }
+            }
+            if (best < 0) {
+                // Every vertex with neighbors is a landmark already.
+                break;
+            }
+            int[] table = distancesFrom.apply(best);
+            for (int v = 0; v < size; v++) {
+                if (table[v] != UNREACHED && table[v] < nearest[v]) {
+                    nearest[v] = table[v];
+                }
+            }
+            ids[chosen] = best;
+            distance[chosen] = table;
+            chosen++;
+        }
+        return new Landmarks(Arrays.copyOf(ids, chosen), Arrays.copyOf(distance, chosen), version);
+    }
+
+    // Returns whether the tables were computed on the given version of the graph.
+    boolean isValidFor(int graphVersion) {
+        return version == graphVersion;
+    }
+
+    // Returns the number of landmarks.
+    int count() {
+        return ids.length;
+    }
+
+    // Returns the id of the i-th landmark.
+    int id(int i) {
+        return ids[i];
+    }
+
+    // Returns a lower bound on the distance between a and b, or MAX_VALUE if some landmark reaches exactly
+    // one of them, which means they are not connected.
+    int lowerBound(int a, int b) {
+        int bound = 0;
+        for (int[] table : distance) {
+            int fromA = table[a];
+            int fromB = table[b];
+            if ((fromA == UNREACHED) != (fromB == UNREACHED)) {
+                return Integer.MAX_VALUE;
+            }
+            if (fromA != UNREACHED) {
+                bound = Math.max(bound, Math.abs(fromA - fromB));
+            }
+        }
+        return bound;
+    }
+
+    // Returns an upper bound on the distance between a and b, or MAX_VALUE if no landmark reaches both.
+    int upperBound(int a, int b) {
+        int bound = Integer.MAX_VALUE;
+        for (int[] table : distance) {
+            int fromA = table[a];
+            int fromB = table[b];
+            if (fromA != UNREACHED && fromB != UNREACHED) {
+                bound = Math.min(bound, fromA + fromB);
+            }
+        }
+        return bound;
+    }
+}
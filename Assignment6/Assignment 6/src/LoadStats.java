@@ -0,0 +1,34 @@
+// Size and load time of a graph read from a file, reported to a GraphListener.
+public class LoadStats {
+    private final String source;
+    private final int vertexCount;
+    private final long edgeCount;
+    private final long nanos;
+
+    LoadStats(String source, int vertexCount, long edgeCount, long nanos) {
+        this.source = source;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.nanos = nanos;
+    }
+
+    // Returns the name of the file the graph was read from.
+    public String getSource() {
+        return source;
+    }
+
+    // Returns the number of vertices loaded.
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    // Returns the number of undirected edges loaded.
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    // Returns the time it took to read the file and build the graph.
+    public long getNanos() {
+        return nanos;
+    }
+}
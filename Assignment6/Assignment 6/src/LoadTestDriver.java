@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Replays a configurable mix of random path queries against a graph loaded from a file, from several threads
+// at once, and reports throughput and latency percentiles, overall and per kind of query. Together with
+// GraphGenerator this reproduces production-sized workloads on a single machine.
+public class LoadTestDriver {
+
+    // Kinds of queries, and the names used for them in the -mix option.
+    private enum QueryType {
+        BFS("bfs"), DFS("dfs"), BIDIRECTIONAL("bidir"), ASTAR("astar"), CONNECTED("connected");
+
+        private final String label;
+
+        QueryType(String label) {
+            this.label = label;
+        }
+    }
+
+    // Settings of a run, from the command line.
+    private static class Options {
+        String file;
+        String format;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queries = 100000;
+        int warmup = 10000;
+        long seed = 1;
+        int landmarks = 0;
+        int cache = 0;
+        // Relative weight of each query type, indexed by ordinal.
+        int[] mix = {100, 0, 0, 0, 0};
+    }
+
+    // Usage: LoadTestDriver <graph file> [options]
+    //     -format adj|words|dict|binary  file format; by default from the extension (.adj, .words, .dict, .bin),
+    //                                    otherwise adj (Graph.read format)
+    //     -threads N                     number of query threads (default: number of processors)
+    //     -queries N                     number of measured queries (default 100000)
+    //     -warmup N                      number of queries run before measuring (default 10000)
+    //     -mix bfs:60,bidir:30,dfs:10    relative weights of bfs, dfs, bidir, astar and connected queries
+    //                                    (default bfs only)
+    //     -seed S                        seed for choosing queries (default 1)
+    //     -landmarks K                   precompute K landmarks after loading, for astar and BFS pruning
+    //     -cache N                       cache the last N paths (see Graph.enablePathCache)
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadTestDriver <graph file> [-format adj|words|dict|binary] [-threads N] "
+                    + "[-queries N] [-warmup N] [-mix bfs:60,bidir:30,dfs:10] [-seed S] [-landmarks K] [-cache N]");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Path path = Paths.get(options.file);
+            switch (options.format) {
+                case "adj":
+                    run(Graph.read(options.file), start, options);
+                    break;
+                case "words":
+                    run(WordLadders.readWordGraph(options.file), start, options);
+                    break;
+                case "dict":
+                    run(WordLadders.buildFromDictionary(path), start, options);
+                    break;
+                default:
+                    // Keys are of whatever type the file holds: String names for graphs read from adj files,
+                    // Integer ids for word graphs. Queries only compare and hash keys, so any type works.
+                    Graph<?, Object> graph = Graph.load(path);
+                    run(graph, start, options);
+                    break;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading file " + options.file + ": " + e);
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("Load test failed: " + e);
+        }
+    }
+
+    private static Options parseOptions(String[] args) {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Please specify the graph filename as command line argument!");
+        }
+        Options options = new Options();
+        options.file = args[0];
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-format":
+                    options.format = value;
+                    break;
+                case "-threads":
+                    options.threads = Integer.parseInt(value);
+                    break;
+                case "-queries":
+                    options.queries = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    options.warmup = Integer.parseInt(value);
+                    break;
+                case "-mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "-seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                case "-landmarks":
+                    options.landmarks = Integer.parseInt(value);
+                    break;
+                case "-cache":
+                    options.cache = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (options.format == null) {
+            String file = options.file;
+            options.format = file.endsWith(".words") ? "words" : file.endsWith(".dict") ? "dict"
+                    : file.endsWith(".bin") ? "binary" : "adj";
+        }
+        if (!Arrays.asList("adj", "words", "dict", "binary").contains(options.format)) {
+            throw new IllegalArgumentException("Unknown format " + options.format);
+        }
+        if (options.threads < 1 || options.queries < 1 || options.warmup < 0) {
+            throw new IllegalArgumentException("Threads and queries should be positive, warmup non-negative");
+        }
+        return options;
+    }
+
+    // Parses a query mix such as "bfs:60,bidir:30,dfs:10" into weights indexed by QueryType ordinal.
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[QueryType.values().length];
+        long total = 0;
+        for (String part : mix.split(",")) {
+            String[] entry = part.split(":");
+            QueryType type = null;
+            for (QueryType candidate : QueryType.values()) {
+                if (candidate.label.equals(entry[0].trim())) {
+                    type = candidate;
+                }
+            }
+            if (type == null || entry.length != 2) {
+                throw new IllegalArgumentException("Bad query mix entry: " + part);
+            }
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in query mix entry: " + part);
+            }
+            weights[type.ordinal()] = weight;
+            total += weight;
+        }
+        if (total <= 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Query mix weights should add up to between 1 and "
+                    + Integer.MAX_VALUE + ": " + mix);
+        }
+        return weights;
+    }
+
+    // Runs the warmup and measured queries on the loaded graph and prints the report.
+    private static <K extends Comparable<? super K>, V> void run(Graph<K, V> graph, long loadStart, Options options)
+            throws InterruptedException, ExecutionException {
+        List<K> vertices = new ArrayList<>();
+        graph.forEachVertex((name, data) -> vertices.add(name));
+        System.out.println("Loaded " + vertices.size() + " vertices from " + options.file + " in "
+                + (System.nanoTime() - loadStart) / 1000000 + " ms");
+        if (vertices.isEmpty()) {
+            return;
+        }
+        if (options.landmarks > 0) {
+            long start = System.nanoTime();
+            graph.precomputeLandmarks(options.landmarks);
+            System.out.println("Computed " + options.landmarks + " landmarks in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        if (options.cache > 0) {
+            graph.enablePathCache(options.cache);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads);
+        try {
+            runQueries(pool, graph, vertices, options, options.warmup, options.seed + 7919);
+            System.out.println("Running " + options.queries + " queries on " + options.threads + " threads, after "
+                    + options.warmup + " warmup queries");
+            long start = System.nanoTime();
+            List<QueryLog> logs = runQueries(pool, graph, vertices, options, options.queries, options.seed);
+            long elapsed = System.nanoTime() - start;
+            printReport(logs, elapsed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Runs count queries, split over the threads of the pool, and returns the log of each thread.
+    private static <K extends Comparable<? super K>, V> List<QueryLog> runQueries(
+            ExecutorService pool, Graph<K, V> graph, List<K> vertices, Options options, int count, long seed)
+            throws InterruptedException, ExecutionException {
+        List<Future<QueryLog>> futures = new ArrayList<>();
+        for (int t = 0; t < options.threads; t++) {
+            int share = count / options.threads + (t < count % options.threads ? 1 : 0);
+            long threadSeed = seed * 31 + t;
+            futures.add(pool.submit(() -> runThread(graph, vertices, options.mix, share, threadSeed)));
+        }
+        List<QueryLog> logs = new ArrayList<>();
+        for (Future<QueryLog> future : futures) {
+            logs.add(future.get());
+        }
+        return logs;
+    }
+
+    // Type, latency and outcome of each query run by one thread.
+    private static class QueryLog {
+        final byte[] type;
+        final long[] nanos;
+        final boolean[] found;
+
+        QueryLog(int count) {
+            type = new byte[count];
+            nanos = new long[count];
+            found = new boolean[count];
+        }
+    }
+
+    // Runs count random queries with the given mix, and times each one.
+    private static <K extends Comparable<? super K>, V> QueryLog runThread(Graph<K, V> graph, List<K> vertices,
+                                                                           int[] mix, int count, long seed) {
+        Random random = new Random(seed);
+        int totalWeight = 0;
+        for (int weight : mix) {
+            totalWeight += weight;
+        }
+        QueryType[] types = QueryType.values();
+        QueryLog log = new QueryLog(count);
+        for (int i = 0; i < count; i++) {
+            // Pick the query type by weight, then two random vertices.
+            int pick = random.nextInt(totalWeight);
+            int typeIndex = 0;
+            while (pick >= mix[typeIndex]) {
+                pick -= mix[typeIndex];
+                typeIndex++;
+            }
+            K from = vertices.get(random.nextInt(vertices.size()));
+            K to = vertices.get(random.nextInt(vertices.size()));
+            long start = System.nanoTime();
+            boolean found;
+            switch (types[typeIndex]) {
+                case BFS:
+                    found = graph.BFS(from, to).length > 0;
+                    break;
+                case DFS:
+                    found = graph.DFS(from, to).length > 0;
+                    break;
+                case BIDIRECTIONAL:
+                    found = graph.bidirectionalBFS(from, to).length > 0;
+                    break;
+                case ASTAR:
+                    found = graph.aStar(from, to).length > 0;
+                    break;
+                default:
+                    found = graph.isConnected(from, to);
+                    break;
+            }
+            log.nanos[i] = System.nanoTime() - start;
+            log.type[i] = (byte) typeIndex;
+            log.found[i] = found;
+        }
+        return log;
+    }
+
+    // Prints throughput and latency percentiles for all queries, and for each query type that was run.
+    private static void printReport(List<QueryLog> logs, long elapsedNanos) {
+        System.out.printf("%-10s %10s %8s %12s %10s %10s %10s %10s %10s%n", "query", "count", "found",
+                "queries/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        printRow("all", logs, -1, elapsedNanos);
+        for (QueryType type : QueryType.values()) {
+            printRow(type.label, logs, type.ordinal(), elapsedNanos);
+        }
+    }
+
+    // Prints the row for one query type, or for all queries if typeIndex is negative. Skips empty rows.
+    private static void printRow(String label, List<QueryLog> logs, int typeIndex, long elapsedNanos) {
+        int count = 0;
+        for (QueryLog log : logs) {
+            for (byte type : log.type) {
+                if (typeIndex < 0 || type == typeIndex) {
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        long[] nanos = new long[count];
+        int found = 0;
+        int index = 0;
+        for (QueryLog log : logs) {
+            for (int i = 0; i < log.type.length; i++) {
+                if (typeIndex < 0 || log.type[i] == typeIndex) {
+                    nanos[index++] = log.nanos[i];
+                    found += log.found[i] ? 1 : 0;
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-10s %10d %7.1f%% %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n", label, count,
+                100.0 * found / count, count * 1e9 / elapsedNanos, percentile(nanos, 0.5) / 1e3,
+                percentile(nanos, 0.9) / 1e3, percentile(nanos, 0.99) / 1e3, percentile(nanos, 0.999) / 1e3,
+                nanos[count - 1] / 1e3);
+    }
+
+    // Returns the smallest value that at least fraction of the sorted values do not exceed.
+    static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
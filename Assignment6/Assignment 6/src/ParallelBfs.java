@@ -0,0 +1,268 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Level-synchronous, direction-optimizing parallel Breadth First search over a graph in compressed sparse
+// row form (see FrozenGraph), after Beamer, Asanovic and Patterson.
+// Each level (frontier) is processed in parallel with fork/join. Small frontiers are expanded top-down:
+// every frontier vertex claims its unvisited neighbors. When the frontier gets large, expanding it would
+// mostly look at edges to vertices that are already visited, so the search switches to bottom-up: every
+// unvisited vertex looks for any neighbor in the frontier, and stops at the first one it finds.
+// Distances are the same as those of a sequential BFS. The search keeps no parent links; see path for how
+// the path of a sequential BFS is recovered from the distances.
+final class ParallelBfs {
+    // Switch to bottom-up when the edges out of the frontier exceed 1/ALPHA of the edges out of unvisited
+    // vertices, and back to top-down when the frontier shrinks below 1/BETA of the vertices.
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    // Ranges of at most this many vertices are processed by one task without splitting further.
+    private static final int GRAIN = 1024;
+
+    // Arrays of the search, reused by the queries of each thread, like SearchState.
+    private static final ThreadLocal<Buffers> POOL = ThreadLocal.withInitial(Buffers::new);
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int size;
+
+    // The arrays of this search, released when it is done.
+    private final Buffers buffers;
+
+    // dist[v] is the number of edges on a shortest path from the source to v, or -1 if not reached yet.
+    private final AtomicIntegerArray dist;
+
+    // Vertices of the current level, and of the next level as it is being collected.
+    private int[] frontier;
+    private int frontierSize;
+    private int[] next;
+    private final AtomicInteger nextSize = new AtomicInteger();
+
+    // Level of the vertices in the current frontier.
+    private int level;
+
+    private ParallelBfs(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.size = offsets.length - 1;
+        // While this thread waits for the tasks of a search, the pool may have it run another task that
+        // starts a search of its own. That search gets arrays of its own.
+        Buffers local = POOL.get();
+        buffers = local.inUse ? new Buffers() : local;
+        buffers.inUse = true;
+        buffers.ensureCapacity(size);
+        dist = buffers.dist;
+        frontier = buffers.frontier;
+        next = buffers.next;
+    }
+
+    // Returns the distance (number of edges) from source to every vertex, or -1 for vertices that can not be
+    // reached. If target is not negative, the search stops after the level that reaches target, and only
+    // vertices up to that level have their distances set.
+    static int[] distances(int[] offsets, int[] targets, int source, int target) {
+        ParallelBfs search = new ParallelBfs(offsets, targets);
+        try {
+            search.run(source, target);
+            int[] result = new int[search.size];
+            for (int v = 0; v < result.length; v++) {
+                result[v] = search.dist.get(v);
+            }
+            return result;
+        } finally {
+            search.release();
+        }
+    }
+
+    // Returns the vertex ids on the path from source to target that a sequential BFS finds, or an empty
+    // array if target can not be reached. Neighbor lists must be in increasing order of vertex id, as in
+    // FrozenGraph.
+    // A sequential BFS queues the vertices of each level in order of their parents, and the neighbors of a
+    // parent in increasing id order. Each vertex gets as parent the first vertex of the previous level that
+    // reaches it. By induction, the path to a vertex is the one whose sequence of ids, read from the source,
+    // comes first in lexicographic order among all its shortest paths. That path is found from the
+    // distances alone: mark the vertices on some shortest path, walking back from target a level at a time,
+    // then walk forward from source, each time to the first marked neighbor one level further.
+    static int[] path(int[] offsets, int[] targets, int source, int target) {
+        ParallelBfs search = new ParallelBfs(offsets, targets);
+        try {
+            search.run(source, target);
+            return search.pathTo(source, target);
+        } finally {
+            search.release();
+        }
+    }
+
+    private void release() {
+        buffers.inUse = false;
+    }
+
+    private void run(int source, int target) {
+        for (int v = 0; v < size; v++) {
+            dist.set(v, -1);
+        }
+        dist.set(source, 0);
+        frontier[0] = source;
+        frontierSize = 1;
+        level = 0;
+        // Edges out of vertices not visited yet, and out of the current frontier.
+        long unexploredEdges = targets.length - degree(source);
+        long frontierEdges = degree(source);
+        boolean bottomUp = false;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        while (frontierSize > 0 && (target < 0 || dist.get(target) < 0)) {
+            // Choose the direction for this level.
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < size / BETA) {
+                bottomUp = false;
+            }
+            nextSize.set(0);
+            int range = bottomUp ? size : frontierSize;
+            frontierEdges = pool.invoke(new Step(0, range, bottomUp));
+            unexploredEdges -= frontierEdges;
+            // The next level becomes the frontier.
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize.get();
+            level++;
+        }
+    }
+
+    // Returns the path of a sequential BFS from source to target, from the distances found by run (see path).
+    private int[] pathTo(int source, int target) {
+        int length = dist.get(target);
+        if (length < 0) {
+            return new int[0];
+        }
+        // Mark the vertices on shortest paths to target, a level at a time. The queue holds the marked
+        // vertices of the level below the one being marked.
+        SearchState marks = SearchState.acquire(size);
+        int[] queue = marks.queue;
+        int head = 0;
+        int tail = 0;
+        marks.visit(target, -1);
+        queue[tail++] = target;
+        for (int d = length - 1; d > 0; d--) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int v = queue[head++];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int u = targets[e];
+                    if (dist.get(u) == d && !marks.isVisited(u)) {
+                        marks.visit(u, -1);
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+        // Walk forward, each time to the first (smallest) marked neighbor on the next level.
+        int[] path = new int[length + 1];
+        path[0] = source;
+        for (int d = 1; d <= length; d++) {
+            int v = path[d - 1];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int u = targets[e];
+                if (dist.get(u) == d && marks.isVisited(u)) {
+                    path[d] = u;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    private int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    // The per-vertex arrays of a search, grown as needed.
+    private static final class Buffers {
+        AtomicIntegerArray dist = new AtomicIntegerArray(0);
+        int[] frontier = new int[0];
+        int[] next = new int[0];
+
+        // Whether a search on this thread is using the arrays.
+        boolean inUse;
+
+        void ensureCapacity(int capacity) {
+            if (frontier.length < capacity) {
+                int newCapacity = Math.max(capacity, frontier.length + (frontier.length >> 1));
+                dist = new AtomicIntegerArray(newCapacity);
+                frontier = new int[newCapacity];
+                next = new int[newCapacity];
+            }
+        }
+    }
+
+    // Expands one level over a range of positions: frontier positions when top-down, vertex ids when
+    // bottom-up. Returns the number of edges out of the vertices it added to the next level.
+    private class Step extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int low;
+        private final int high;
+        private final boolean bottomUp;
+
+        Step(int low, int high, boolean bottomUp) {
+            this.low = low;
+            this.high = high;
+            this.bottomUp = bottomUp;
+        }
+
+        @Override
+        protected Long compute() {
+            if (high - low > GRAIN) {
+                int mid = (low + high) >>> 1;
+                Step left = new Step(low, mid, bottomUp);
+                left.fork();
+                long right = new Step(mid, high, bottomUp).compute();
+                return left.join() + right;
+            }
+            int[] found = new int[64];
+            int count = 0;
+            long edges = 0;
+            if (bottomUp) {
+                // Every unvisited vertex in the range looks for a neighbor in the frontier.
+                for (int v = low; v < high; v++) {
+                    if (dist.get(v) >= 0) {
+                        continue;
+                    }
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        if (dist.get(targets[e]) == level) {
+                            // Only this task looks at v, so no compare-and-set is needed.
+                            dist.set(v, level + 1);
+                            if (count == found.length) {
+                                found = Arrays.copyOf(found, count * 2);
+                            }
+                            found[count++] = v;
+                            edges += degree(v);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                // Every frontier vertex in the range claims its unvisited neighbors.
+                for (int i = low; i < high; i++) {
+                    int u = frontier[i];
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        int v = targets[e];
+                        if (dist.get(v) < 0 && dist.compareAndSet(v, -1, level + 1)) {
+                            if (count == found.length) {
+                                found = Arrays.copyOf(found, count * 2);
+                            }
+                            found[count++] = v;
+                            edges += degree(v);
+                        }
+                    }
+                }
+            }
+            // Append what this task found to the next level in one go.
+            int start = nextSize.getAndAdd(count);
+            System.arraycopy(found, 0, next, start, count);
+            return edges;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+// Reusable holder for a path found by a search, as the sequence of node names from source to destination.
+// The path query methods that take a PathBuffer write the path into it instead of allocating a new array, so
+// a query loop that keeps reusing one buffer produces no garbage once the buffer has grown to fit the
+// longest path. A buffer is not thread safe; use one per thread.
+public final class PathBuffer<K> {
+    // One reusable buffer per thread, for the methods that return paths as new arrays.
+    private static final ThreadLocal<PathBuffer<Object>> POOL = ThreadLocal.withInitial(PathBuffer::new);
+
+    private Object[] names;
+    private int size;
+
+    // Constructs an empty buffer.
+    public PathBuffer() {
+        this(16);
+    }
+
+    // Constructs an empty buffer with room for paths of the given number of nodes before it has to grow.
+    public PathBuffer(int capacity) {
+        names = new Object[Math.max(capacity, 1)];
+    }
+
+    // Returns the current thread's pooled buffer. Its contents are only valid until the next call on this thread.
+    // Callers clear() it once they have copied the path out, so that the pool does not keep node names alive.
+    @SuppressWarnings("unchecked")
+    static <K> PathBuffer<K> local() {
+        return (PathBuffer<K>) (PathBuffer<?>) POOL.get();
+    }
+
+    // Returns the number of nodes on the path, or 0 if no path was found.
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the name of the node at the given position on the path, the source being at position 0.
+    @SuppressWarnings("unchecked")
+    public K get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (K) names[index];
+    }
+
+    // Empties the buffer. The names it held are released, so the buffer does not keep them from being collected.
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    // Appends a node name to the path.
+    void add(K name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size++] = name;
+    }
+
+    // Sets the number of nodes on the path, growing the buffer if needed. The names are then filled in with
+    // set(), in any order. Names beyond a shorter new size are released.
+    void setSize(int length) {
+        if (length > names.length) {
+            names = Arrays.copyOf(names, Math.max(length, names.length * 2));
+        } else if (length < size) {
+            Arrays.fill(names, length, size, null);
+        }
+        size = length;
+    }
+
+    void set(int index, K name) {
+        names[index] = name;
+    }
+
+    // Replaces the path with a copy of the given one.
+    void set(K[] path) {
+        setSize(path.length);
+        System.arraycopy(path, 0, names, 0, path.length);
+    }
+
+    // Returns the path as a new array, of the same type as sample (normally the source of the query).
+    @SuppressWarnings("unchecked")
+    K[] toArray(K sample) {
+        K[] path = (K[]) Array.newInstance(sample.getClass(), size);
+        System.arraycopy(names, 0, path, 0, size);
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(names, size));
+    }
+}
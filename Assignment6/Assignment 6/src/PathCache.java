@@ -0,0 +1,110 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Bounded cache of path query results, keyed on (from, to, algorithm), for Graph.
+// When full, the least recently used entry is evicted. Every entry belongs to one version of the graph
+// (its modification count); when the graph changes, the whole cache is dropped on the next access.
+// All methods are synchronized, so the cache can be shared by concurrent queries.
+public class PathCache<K> {
+    // Cache key.
+    private static class Key {
+        private final Object from;
+        private final Object to;
+        private final SearchAlgorithm algorithm;
+
+        Key(Object from, Object to, SearchAlgorithm algorithm) {
+            this.from = from;
+            this.to = to;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return algorithm == key.algorithm && from.equals(key.from) && to.equals(key.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to, algorithm);
+        }
+    }
+
+    private final int capacity;
+
+    // Entries in access order, least recently used first.
+    private final LinkedHashMap<Key, K[]> entries;
+
+    // Modification count of the graph the entries were computed on.
+    private int graphVersion;
+
+    private long hits;
+    private long misses;
+
+    // Constructs an empty cache holding at most capacity paths.
+    PathCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity should be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, K[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, K[]> eldest) {
+                return size() > PathCache.this.capacity;
+            }
+        };
+    }
+
+    // Returns a copy of the cached path, or null if it is not cached for this version of the graph.
+    synchronized K[] get(K from, K to, SearchAlgorithm algorithm, int version) {
+        if (version != graphVersion) {
+            entries.clear();
+            graphVersion = version;
+        }
+        K[] path = entries.get(new Key(from, to, algorithm));
+        if (path == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return path.clone();
+    }
+
+    // Caches a copy of the path, computed on the given version of the graph.
+    synchronized void put(K from, K to, SearchAlgorithm algorithm, int version, K[] path) {
+        if (version != graphVersion) {
+            entries.clear();
+            graphVersion = version;
+        }
+        entries.put(new Key(from, to, algorithm), path.clone());
+    }
+
+    // Returns the maximum number of paths held.
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Returns the number of paths currently held.
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Returns the number of lookups answered from the cache.
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    // Returns the number of lookups that had to run a search.
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Drops all cached paths. The hit and miss counters are kept.
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,87 @@
+// Counters and timings of one path query on a Graph, reported to its GraphListener.
+// Nodes are counted as they are expanded (their neighbors looked at), and edges as the neighbors of
+// expanded nodes. The frontier is the set of nodes found but not expanded yet: the queue of BFS, the
+// stack of DFS, both queues of bidirectional BFS and the open set of A*.
+public class QueryStats {
+    private final SearchAlgorithm algorithm;
+    private boolean cacheHit;
+    private int pathLength;
+    private long expandedNodes;
+    private long scannedEdges;
+    private int maxFrontier;
+    private long resetNanos;
+    private long totalNanos;
+
+    QueryStats(SearchAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    // Records the expansion of a node with the given number of neighbors, with the frontier at the given size.
+    void expand(int degree, int frontier) {
+        expandedNodes++;
+        scannedEdges += degree;
+        if (frontier > maxFrontier) {
+            maxFrontier = frontier;
+        }
+    }
+
+    // Adds time spent getting search state ready for the query.
+    void addResetNanos(long nanos) {
+        resetNanos += nanos;
+    }
+
+    void setCacheHit() {
+        cacheHit = true;
+    }
+
+    // Records the outcome of the query.
+    void finish(int pathLength, long totalNanos) {
+        this.pathLength = pathLength;
+        this.totalNanos = totalNanos;
+    }
+
+    // Returns the algorithm that answered the query.
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // Returns whether the path was found in the path cache, without searching.
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    // Returns whether a path was found.
+    public boolean isFound() {
+        return pathLength > 0;
+    }
+
+    // Returns the number of nodes on the path found, 0 if there is none.
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    // Returns the number of nodes expanded.
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    // Returns the number of edges looked at.
+    public long getScannedEdges() {
+        return scannedEdges;
+    }
+
+    // Returns the largest number of nodes in the frontier at any time.
+    public int getMaxFrontier() {
+        return maxFrontier;
+    }
+
+    // Returns the time spent getting the per-thread search state ready (clearing visited marks).
+    public long getResetNanos() {
+        return resetNanos;
+    }
+
+    // Returns the time the whole query took.
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+}
@@ -0,0 +1,4 @@
+// The path search algorithms of Graph, as reported to a GraphListener and used to key cached paths.
+public enum SearchAlgorithm {
+    BFS, DFS, BIDIRECTIONAL_BFS, A_STAR, DIJKSTRA
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+// Per-query state of a graph search: visited marks, parent links and queue storage, indexed by vertex id.
+// Searches used to keep this state on the shared graph nodes, which meant only one search could run at a
+// time and every search first had to clear the marks of the whole graph.
+// Each thread gets its own reusable SearchState from a thread-local pool, so searches on different threads
+// do not interfere. A vertex counts as visited when its stamp equals the current epoch; starting a new
+// search just increments the epoch, so a search only touches the vertices it actually visits.
+final class SearchState {
+    // One reusable state per thread, plus a second one for searches that need two (bidirectional search).
+    private static final ThreadLocal<SearchState> POOL = ThreadLocal.withInitial(SearchState::new);
+    private static final ThreadLocal<SearchState> SECONDARY_POOL = ThreadLocal.withInitial(SearchState::new);
+
+    // stamp[v] == epoch means v has been visited in the current search.
+    private int[] stamp;
+
+    // Current search number. Never 0, so that freshly allocated (zeroed) stamps mean not visited.
+    private int epoch;
+
+    // parent[v] is the vertex from which v was reached. Only valid if v is visited.
+    private int[] parent;
+
+    // Storage for the search queue (or stack). Each vertex is added at most once per search.
+    int[] queue;
+
+    // For depth first searches: position of the next neighbor to look at, per stack frame.
+    int[] cursor;
+
+    // Distance from the source, for searches that need it (A*). Only valid if the vertex is visited.
+    int[] distance;
+
+    // Priority queue for best-first searches, created on first use.
+    private IndexedMinHeap heap;
+
+    // Bucket queue for weighted searches with small weights, created on first use.
+    private BucketQueue buckets;
+
+    // Path cost from the source, for weighted searches, created on first use. Only valid if the vertex is
+    // visited.
+    private long[] cost;
+
+    // Front and back of the queue, for searches that expand it a level at a time.
+    int head;
+    int tail;
+
+    private SearchState() {
+        stamp = new int[0];
+        parent = new int[0];
+        queue = new int[0];
+        cursor = new int[0];
+        distance = new int[0];
+        heap = null;
+        buckets = null;
+        cost = new long[0];
+        epoch = 0;
+    }
+
+    // Returns the current thread's search state, cleared for a new search over vertex ids 0..capacity-1.
+    static SearchState acquire(int capacity) {
+        SearchState state = POOL.get();
+        state.begin(capacity);
+        return state;
+    }
+
+    // Returns the current thread's second search state, for searches that run two at once. It is
+    // independent of the one returned by acquire().
+    static SearchState acquireSecondary(int capacity) {
+        SearchState state = SECONDARY_POOL.get();
+        state.begin(capacity);
+        return state;
+    }
+
+    // Starts a new search: grows the arrays if needed and forgets all visited marks.
+    private void begin(int capacity) {
+        if (stamp.length < capacity) {
+            int newCapacity = Math.max(capacity, stamp.length + (stamp.length >> 1));
+            stamp = new int[newCapacity];
+            parent = new int[newCapacity];
+            queue = new int[newCapacity];
+            cursor = new int[newCapacity];
+            distance = new int[newCapacity];
+        }
+        head = 0;
+        tail = 0;
+        epoch++;
+        if (epoch == 0) {
+            // The epoch wrapped around, so old stamps could look current. Clear them once.
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    // Returns an empty priority queue for vertex ids 0..capacity-1. The caller must clear() it when done, so
+    // that it can be reused by the next search on this thread.
+    IndexedMinHeap heap(int capacity) {
+        if (heap == null || heap.capacity() < capacity) {
+            heap = new IndexedMinHeap(Math.max(capacity, stamp.length));
+        }
+        return heap;
+    }
+
+    // Returns an empty bucket queue for vertex ids 0..capacity-1 with the given number of buckets. The caller
+    // must clear() it when done.
+    BucketQueue buckets(int capacity, int bucketCount) {
+        if (buckets == null || buckets.capacity() < capacity || buckets.buckets() != bucketCount) {
+            buckets = new BucketQueue(Math.max(capacity, stamp.length), bucketCount);
+        }
+        return buckets;
+    }
+
+    // Returns the path cost array for vertex ids 0..capacity-1.
+    long[] cost(int capacity) {
+        if (cost.length < capacity) {
+            cost = new long[Math.max(capacity, stamp.length)];
+        }
+        return cost;
+    }
+
+    // Returns the number of the current search, which changes every time the state is acquired.
+    int epoch() {
+        return epoch;
+    }
+
+    // Returns whether v has been visited in the current search.
+    boolean isVisited(int v) {
+        return stamp[v] == epoch;
+    }
+
+    // Marks v as visited, reached from parentId.
+    void visit(int v, int parentId) {
+        stamp[v] = epoch;
+        parent[v] = parentId;
+    }
+
+    // Sets the parent of v without marking it visited.
+    void setParent(int v, int parentId) {
+        parent[v] = parentId;
+    }
+
+    // Returns the vertex from which v was reached.
+    int parent(int v) {
+        return parent[v];
+    }
+}
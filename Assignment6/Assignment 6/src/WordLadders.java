@@ -1,20 +1,63 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Collectors;
 
 public class WordLadders {
 
     public static void main(String[] args) {
         if (args.length < 1) {
             System.err.println("Please specify the word graph filename as command line argument!");
+            printUsage();
+            return;
+        }
+        // Options may follow the filename in any order.
+        // With "-int", use the primitive int graph, which finds the same ladders without boxing vertex ids.
+        // With "-dict", the file is a plain word list, and the graph is built from it.
+        // With "-astar", shortest ladders are found with A* search, guided by the Hamming distance to the end
+        // word, instead of BFS. It requires "-dict", since only then does every edge join words that differ
+        // in one letter, which keeps the ladders shortest (see hammingDistance).
+        boolean intGraph = false;
+        boolean dictionary = false;
+        boolean aStar = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-int")) {
+                intGraph = true;
+            } else if (args[i].equals("-dict")) {
+                dictionary = true;
+            } else if (args[i].equals("-astar")) {
+                aStar = true;
+            } else {
+                System.err.println("Unknown option " + args[i]);
+                printUsage();
+                return;
+            }
+        }
+        // The int graph can only be read from a word graph file, and has no A* search.
+        if (intGraph && (dictionary || aStar)) {
+            System.err.println("-int can not be combined with " + (dictionary ? "-dict" : "-astar"));
+            printUsage();
+            return;
+        }
+        if (aStar && !dictionary) {
+            System.err.println("-astar requires -dict");
+            printUsage();
+            return;
         }
         System.out.println("Reading word graph from file " + args[0]);
+        if (intGraph) {
+            runIntGraph(args[0]);
+            return;
+        }
         Graph<Integer, String> wordGraph;
         try {
-            wordGraph = readWordGraph(args[0]);
+            wordGraph = dictionary ? buildFromDictionary(Paths.get(args[0])) : readWordGraph(args[0]);
         } catch (IOException e) {
             System.err.println("Error reading file " + args[0] + ": " + e);
             return;
@@ -29,48 +72,117 @@ public class WordLadders {
             // If either start word or end word is not found in graph, continue to
             // next user input. If both were found, find a path between the nodes
             // using BFS and DFS (for small graphs only).
+            if ((startNode = wordToNodeMap.get(userWords[0])) == null) {
+                System.out.println("Start node not found in the graph");
+            } else if ((endNode = wordToNodeMap.get(userWords[1])) == null) {
+                System.out.println("End node not found in the graph");
+            } else {
+                // Perform Breadth-First search, or A* search.
+                Integer[] bfsPath = aStar ? wordGraph.aStar(startNode, endNode, WordLadders::hammingDistance)
+                        : wordGraph.BFS(startNode, endNode);
+                // Display the path.
+                System.out.println(aStar ? "A* path:" : "BFS path:");
+                for (int node : bfsPath) {
+                    System.out.print(" " + wordGraph.getData(node));
+                }
+                System.out.println();
+                // Perform Depth-First search. DFS does not recurse, so it is safe on large graphs too.
+                Integer[] dfsPath = wordGraph.DFS(startNode, endNode);
+                // Display the path.
+                System.out.println("DFS path:");
+                for (int node : dfsPath) {
+                    System.out.print(" " + wordGraph.getData(node));
+                }
+                System.out.println();
+            }
+            // Get the user input on whether to continue.
+            if (!getContinueFromUser()) {
+                break;
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java WordLadders <file> [-dict [-astar]]");
+        System.err.println("       java WordLadders <file> -int");
+        System.err.println("  -dict   the file is a word list; words differing in one letter are connected");
+        System.err.println("  -astar  use A* search instead of BFS; requires -dict");
+        System.err.println("  -int    use the int graph (BFS only)");
+    }
+
+    // Same as main, but answers the queries with an IntGraph.
+    private static void runIntGraph(String filename) {
+        IntGraph<String> wordGraph;
+        try {
+            wordGraph = readIntWordGraph(filename);
+        } catch (IOException e) {
+            System.err.println("Error reading file " + filename + ": " + e);
+            return;
+        }
+        HashMap<String, Integer> wordToNodeMap = buildWordToNodeMap(wordGraph);
+        while (true) {
+            String[] userWords = getTwoWordsFromUser();
+            Integer startNode, endNode;
             if ((startNode = wordToNodeMap.get(userWords[0])) == null) {
                 System.out.println("Start node not found in the graph");
             } else if ((endNode = wordToNodeMap.get(userWords[1])) == null) {
                 System.out.println("End node not found in the graph");
             } else {
                 // Perform Breadth-First search.
-                Integer[] bfsPath = wordGraph.BFS(startNode, endNode);
+                int[] bfsPath = wordGraph.BFS(startNode, endNode);
                 // Display the path.
                 System.out.println("BFS path:");
                 for (int node : bfsPath) {
-                    System.out.print(" " + wordGraph.findVertex(node).getData());
+                    System.out.print(" " + wordGraph.getData(node));
                 }
                 System.out.println();
-                // If the Graph is small enough do DFS also. Do not do DFS for large graphs.
-                if (wordToNodeMap.size() < 1000) {
-                    Integer[] dfsPath = wordGraph.DFS(startNode, endNode);
-                    // Display the path.
-                    System.out.println("DFS path:");
-                    for (int node : dfsPath) {
-                        System.out.print(" " + wordGraph.findVertex(node).getData());
-                    }
-                    System.out.println();
+                // IntGraph.DFS does not recurse, so it is safe on large graphs too.
+                int[] dfsPath = wordGraph.DFS(startNode, endNode);
+                System.out.println("DFS path:");
+                for (int node : dfsPath) {
+                    System.out.print(" " + wordGraph.getData(node));
                 }
+                System.out.println();
             }
-            // Get the user input on whether to continue.
-            System.out.println("Continue to next word set (y/n)?");
-            Scanner scanner = new Scanner(System.in);
-            String input = scanner.next();
-            if (!input.equals("y")) {
+            if (!getContinueFromUser()) {
                 break;
             }
         }
     }
 
+    // Maps every word to its node. If nodes share a word, the one with the largest id wins, as when the nodes
+    // were put in the map in sorted order; forEachVertex visits them in no particular order.
     public static HashMap<String, Integer> buildWordToNodeMap(Graph<Integer, String> graph) {
         HashMap<String, Integer> hashMap = new HashMap<>();
-        for (Vertex<Integer, String> vertex : graph.getVertices()) {
-            hashMap.put(vertex.getData(), vertex.getName());
+        graph.forEachVertex((name, word) -> hashMap.merge(word, name, Math::max));
+        return hashMap;
+    }
+
+    public static HashMap<String, Integer> buildWordToNodeMap(IntGraph<String> graph) {
+        HashMap<String, Integer> hashMap = new HashMap<>();
+        for (int id : graph.getVertices()) {
+            hashMap.put(graph.getData(id), id);
         }
         return hashMap;
     }
 
+    // Returns the number of positions in which the two words differ, counting each extra letter of the
+    // longer word as a difference.
+    // This is a valid A* heuristic only if every edge of the graph joins two words of the same length that
+    // differ in exactly one letter, as in graphs built by buildFromDictionary. Then every step of a ladder
+    // changes one letter, so the distance never exceeds the length of the shortest ladder. Files read by
+    // readWordGraph and readIntWordGraph may list any edges, so main only uses A* with -dict.
+    public static int hammingDistance(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int distance = Math.max(a.length(), b.length()) - length;
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
     public static String[] getTwoWordsFromUser() {
         System.out.println("Please give a start word and an end word");
         Scanner scanner = new Scanner(System.in);
@@ -79,33 +191,105 @@ public class WordLadders {
         return new String[] {word1, word2};
     }
 
+    // Returns whether the user wants to continue to the next word set.
+    public static boolean getContinueFromUser() {
+        System.out.println("Continue to next word set (y/n)?");
+        Scanner scanner = new Scanner(System.in);
+        String input = scanner.next();
+        return input.equals("y");
+    }
+
+    // Constructs the word graph from the given file. Each line holds a node id, its word, and the ids of
+    // its neighbors, separated by whitespace. The file is memory-mapped and parsed in parallel by GraphLoader.
     public static Graph<Integer, String> readWordGraph(String filename) throws IOException {
-        Graph<Integer, String> graph = new Graph<>();
-        // Open the file and start reading.
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            // Get each line from the file.
-            while ((line = br.readLine()) != null) {
-                // Split the line using space as the delimiter.
-                String[] nodeNames = line.split("\\s+");
-                if (nodeNames.length > 0) {
-                    // Get the start vertex.
-                    int node = Integer.parseInt(nodeNames[0]);
-                    String nodeData = null;
-                    if (nodeNames.length > 1) {
-                        nodeData = nodeNames[1];
-                    }
-                    graph.addNode(node, nodeData);
-                    ArrayList<Integer> neighbors = new ArrayList<>(nodeNames.length - 2);
-                    // Add all edges.
-                    for (int i = 2; i < nodeNames.length; i++) {
-                        neighbors.add(Integer.parseInt(nodeNames[i]));
+        return GraphLoader.readWordGraph(filename);
+    }
+
+    // Same as readWordGraph(filename), but reports the load time and size of the graph to listener, and sets
+    // it as the graph's listener for later queries.
+    public static Graph<Integer, String> readWordGraph(String filename, GraphListener listener) throws IOException {
+        long start = System.nanoTime();
+        Graph<Integer, String> graph = readWordGraph(filename);
+        graph.setListener(listener);
+        graph.reportLoad(filename, System.nanoTime() - start);
+        return graph;
+    }
+
+    // Constructs the word graph from a plain word list, with one word per line, without a precomputed
+    // adjacency file. The word on the n-th non-blank line gets id n (counting from 0), and two words are
+    // connected if they have the same length and differ in exactly one position. The result is the same
+    // graph readWordGraph loads from a file listing each id, its word and the ids of its neighbors.
+    // Instead of comparing all pairs of words, each word is put into one bucket per position, keyed on the
+    // word with that position left out ("cat" goes into "_at", "c_t" and "ca_"); two words are neighbors
+    // exactly when they share a bucket. Every (word length, position) pair is bucketed in parallel.
+    public static Graph<Integer, String> buildFromDictionary(Path path) throws IOException {
+        // Same charset as GraphLoader uses for readWordGraph.
+        List<String> words = Files.readAllLines(path, Charset.defaultCharset()).stream()
+                .map(String::trim)
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+        List<IntList> edgeLists = oneLetterEdges(words);
+        GraphBuilder<Integer, String> builder = new GraphBuilder<>();
+        for (int id = 0; id < words.size(); id++) {
+            // Ids are assigned in order, so the builder id of each word is its own id.
+            builder.addNode(id, words.get(id));
+        }
+        for (IntList edges : edgeLists) {
+            for (int e = 0; e < edges.size; e += 2) {
+                builder.addEdgeIds(edges.values[e], edges.values[e + 1]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Returns the pairs of words (by position in the list) that have the same length and differ in exactly
+    // one position, each pair once, as lists of pairs of ids. See buildFromDictionary.
+    static List<IntList> oneLetterEdges(List<String> words) {
+        // Group the word ids by word length, since only words of the same length can be neighbors.
+        HashMap<Integer, IntList> idsByLength = new HashMap<>();
+        for (int id = 0; id < words.size(); id++) {
+            idsByLength.computeIfAbsent(words.get(id).length(), length -> new IntList()).add(id);
+        }
+        List<int[]> tasks = new ArrayList<>();
+        for (int length : idsByLength.keySet()) {
+            for (int position = 0; position < length; position++) {
+                tasks.add(new int[] {length, position});
+            }
+        }
+        return tasks.parallelStream()
+                .map(task -> bucketEdges(words, idsByLength.get(task[0]), task[1]))
+                .collect(Collectors.toList());
+    }
+
+    // Buckets the words with the given ids on the word with the given position left out, and returns the
+    // edges between words in the same bucket, as pairs of ids.
+    private static IntList bucketEdges(List<String> words, IntList ids, int position) {
+        HashMap<String, IntList> buckets = new HashMap<>();
+        for (int i = 0; i < ids.size; i++) {
+            String word = words.get(ids.values[i]);
+            String key = word.substring(0, position) + word.substring(position + 1);
+            buckets.computeIfAbsent(key, k -> new IntList(2)).add(ids.values[i]);
+        }
+        IntList edges = new IntList();
+        for (IntList bucket : buckets.values()) {
+            for (int i = 0; i < bucket.size; i++) {
+                String word = words.get(bucket.values[i]);
+                for (int j = i + 1; j < bucket.size; j++) {
+                    // Repeated words share every bucket, but differ in no position.
+                    if (!word.equals(words.get(bucket.values[j]))) {
+                        edges.add(bucket.values[i]);
+                        edges.add(bucket.values[j]);
                     }
-                    // Add all the edges. This will create node also, if it does not already exist.
-                    graph.addEdges(node, neighbors);
                 }
             }
         }
-        return graph;
+        return edges;
+    }
+
+    // Reads the same word graph file format as readWordGraph, into an IntGraph.
+    // Vertex ids are parsed straight to int and never boxed. The file is memory-mapped and parsed in parallel
+    // by GraphLoader.
+    public static IntGraph<String> readIntWordGraph(String filename) throws IOException {
+        return GraphLoader.readIntWordGraph(filename);
     }
 }
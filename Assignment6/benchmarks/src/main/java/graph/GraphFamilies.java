@@ -0,0 +1,54 @@
+package graph;
+
+import java.util.List;
+
+// Synthetic graphs for the benchmarks, made by GraphGenerator as undirected edge lists over vertex ids
+// 0..n-1, two ints per edge. Every family uses the same fixed seed, so all runs see the same graphs.
+final class GraphFamilies {
+    static final long SEED = 233;
+
+    private GraphFamilies() {
+    }
+
+    // Returns the edges of the named family ("path", "grid", "random", "powerlaw" or "word") on about n
+    // vertices.
+    static int[] edges(String family, int n) {
+        switch (family) {
+            case "path":
+                return GraphGenerator.path(n);
+            case "grid":
+                int side = (int) Math.sqrt(n);
+                return GraphGenerator.grid(side, side);
+            case "random":
+                return random(n, 4);
+            case "powerlaw":
+                return powerLaw(n, 3);
+            case "word":
+                return GraphGenerator.wordEdges(words(n));
+            default:
+                throw new IllegalArgumentException("Unknown graph family: " + family);
+        }
+    }
+
+    // Erdos-Renyi random graph with average degree degree.
+    static int[] random(int n, int degree) {
+        return GraphGenerator.erdosRenyi(n, (long) n * degree / 2, SEED);
+    }
+
+    // Barabasi-Albert graph in which each new vertex connects to m earlier ones. The earliest vertices
+    // become the hubs.
+    static int[] powerLaw(int n, int m) {
+        return GraphGenerator.barabasiAlbert(n, m, SEED);
+    }
+
+    // Returns n distinct random words of 6 letters from a 12 letter alphabet, which gives a few neighbors
+    // per word when n is in the hundreds of thousands.
+    static List<String> words(int n) {
+        return GraphGenerator.randomWords(n, 6, 12, SEED);
+    }
+
+    // Builds a graph with Integer names from an edge list. Vertex v gets data "v".
+    static Graph<Integer, String> build(int n, int[] edges) {
+        return GraphGenerator.build(n, edges);
+    }
+}
@@ -0,0 +1,115 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to build a random graph with Graph.addNode and Graph.addEdge, with the edges added in sorted, reverse
+// sorted or random order of their end points, compared to building the same graph with GraphBuilder.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"sorted", "reverse", "random"})
+    public String order;
+
+    // Vertex names, boxed once here so that boxing is not measured.
+    private Integer[] names;
+
+    // Edges in insertion order, two vertex ids per edge.
+    private int[] edges;
+
+    // Vertex ids in order of their first appearance in edges, each once.
+    private int[] nodes;
+
+    @Setup
+    public void setUp() {
+        names = new Integer[size];
+        for (int v = 0; v < size; v++) {
+            names[v] = v;
+        }
+        int[] random = GraphFamilies.random(size, 8);
+        long[] packed = new long[random.length / 2];
+        for (int e = 0; e < packed.length; e++) {
+            packed[e] = ((long) random[2 * e] << 32) | random[2 * e + 1];
+        }
+        if (order.equals("sorted") || order.equals("reverse")) {
+            Arrays.sort(packed);
+        }
+        if (order.equals("reverse")) {
+            for (int i = 0, j = packed.length - 1; i < j; i++, j--) {
+                long swap = packed[i];
+                packed[i] = packed[j];
+                packed[j] = swap;
+            }
+        }
+        if (order.equals("random")) {
+            Random shuffle = new Random(GraphFamilies.SEED);
+            for (int i = packed.length - 1; i > 0; i--) {
+                int j = shuffle.nextInt(i + 1);
+                long swap = packed[i];
+                packed[i] = packed[j];
+                packed[j] = swap;
+            }
+        }
+        edges = new int[2 * packed.length];
+        for (int e = 0; e < packed.length; e++) {
+            edges[2 * e] = (int) (packed[e] >>> 32);
+            edges[2 * e + 1] = (int) packed[e];
+        }
+        boolean[] seen = new boolean[size];
+        nodes = new int[size];
+        int count = 0;
+        for (int end : edges) {
+            if (!seen[end]) {
+                seen[end] = true;
+                nodes[count++] = end;
+            }
+        }
+        nodes = Arrays.copyOf(nodes, count);
+    }
+
+    @Benchmark
+    public Graph<Integer, Integer> addNodes() {
+        Graph<Integer, Integer> graph = new Graph<>();
+        for (int v : nodes) {
+            graph.addNode(names[v], null);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer, Integer> addEdges() {
+        Graph<Integer, Integer> graph = new Graph<>();
+        for (int e = 0; e < edges.length; e += 2) {
+            graph.addEdge(names[edges[e]], names[edges[e + 1]]);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer, Integer> graphBuilder() {
+        GraphBuilder<Integer, Integer> builder = new GraphBuilder<>();
+        for (int e = 0; e < edges.length; e += 2) {
+            builder.addEdge(names[edges[e]], names[edges[e + 1]]);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,85 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to load a random word graph from each of the file formats: Graph.read adjacency lists,
+// WordLadders.readWordGraph files, plain dictionaries (WordLadders.buildFromDictionary) and the binary
+// format of Graph.save.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    private Path adjacencyFile;
+    private Path wordGraphFile;
+    private Path dictionaryFile;
+    private Path binaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> words = GraphFamilies.words(size);
+        int[] edges = GraphGenerator.wordEdges(words);
+        dictionaryFile = Files.createTempFile("words", ".txt");
+        adjacencyFile = Files.createTempFile("graph", ".txt");
+        wordGraphFile = Files.createTempFile("wordgraph", ".txt");
+        binaryFile = Files.createTempFile("graph", ".bin");
+        GraphGenerator.writeDictionary(dictionaryFile, words);
+        GraphGenerator.writeAdjacencyList(adjacencyFile, size, edges, words::get);
+        GraphGenerator.writeWordGraph(wordGraphFile, size, edges, words::get);
+        GraphFamilies.build(size, edges).save(binaryFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(adjacencyFile);
+        Files.deleteIfExists(wordGraphFile);
+        Files.deleteIfExists(dictionaryFile);
+        Files.deleteIfExists(binaryFile);
+    }
+
+    @Benchmark
+    public Graph<String, Object> readAdjacencyList() throws IOException {
+        return Graph.read(adjacencyFile.toString());
+    }
+
+    @Benchmark
+    public Graph<Integer, String> readWordGraph() throws IOException {
+        return WordLadders.readWordGraph(wordGraphFile.toString());
+    }
+
+    @Benchmark
+    public IntGraph<String> readIntWordGraph() throws IOException {
+        return WordLadders.readIntWordGraph(wordGraphFile.toString());
+    }
+
+    @Benchmark
+    public Graph<Integer, String> buildFromDictionary() throws IOException {
+        return WordLadders.buildFromDictionary(dictionaryFile);
+    }
+
+    @Benchmark
+    public Graph<Integer, String> loadBinary() throws IOException {
+        return Graph.load(binaryFile);
+    }
+}
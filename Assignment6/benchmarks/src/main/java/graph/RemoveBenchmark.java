@@ -0,0 +1,79 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to remove the highest degree vertices (hubs) of a power-law graph, one at a time with removeNode and
+// all at once with removeNodes, and one at a time with deferred compaction. Every invocation starts from a
+// freshly built graph.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class RemoveBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"100"})
+    public int hubs;
+
+    private int[] edges;
+
+    private List<Integer> hubNames;
+
+    private Graph<Integer, String> graph;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        edges = GraphFamilies.powerLaw(size, 3);
+        // In preferential attachment graphs the earliest vertices have the highest degrees.
+        hubNames = new ArrayList<>();
+        for (int v = 0; v < hubs; v++) {
+            hubNames.add(v);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void build() {
+        graph = GraphFamilies.build(size, edges);
+    }
+
+    @Benchmark
+    public Graph<Integer, String> removeNode() {
+        for (Integer name : hubNames) {
+            graph.removeNode(name);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer, String> removeNodes() {
+        graph.removeNodes(hubNames);
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer, String> removeNodeDeferred() {
+        graph.setCompactionThreshold(0.25);
+        for (Integer name : hubNames) {
+            graph.removeNode(name);
+        }
+        graph.compact();
+        return graph;
+    }
+}
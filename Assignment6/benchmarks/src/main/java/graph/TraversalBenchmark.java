@@ -0,0 +1,96 @@
+package graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time per path query on each synthetic graph family, for BFS, DFS, bidirectional BFS and Dijkstra (all
+// weights are 1, so it runs on the bucket queue), returning new arrays and writing to a reused PathBuffer.
+// Each invocation answers the next of a fixed sequence of random (from, to) queries. Run with -prof gc to
+// compare the allocation rates.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraversalBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"path", "grid", "random", "powerlaw", "word"})
+    public String family;
+
+    @Param({"100000"})
+    public int size;
+
+    private Graph<Integer, String> graph;
+
+    // Query end points, boxed once here.
+    private Integer[] from;
+    private Integer[] to;
+
+    private int next;
+
+    private final PathBuffer<Integer> path = new PathBuffer<>();
+
+    @Setup
+    public void setUp() {
+        graph = GraphFamilies.build(size, GraphFamilies.edges(family, size));
+        int vertices = graph.getVertices().size();
+        Random random = new Random(GraphFamilies.SEED);
+        from = new Integer[QUERIES];
+        to = new Integer[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            from[i] = random.nextInt(vertices);
+            to[i] = random.nextInt(vertices);
+        }
+    }
+
+    @Benchmark
+    public Integer[] bfs() {
+        int i = next++ & (QUERIES - 1);
+        return graph.BFS(from[i], to[i]);
+    }
+
+    @Benchmark
+    public Integer[] dfs() {
+        int i = next++ & (QUERIES - 1);
+        return graph.DFS(from[i], to[i]);
+    }
+
+    @Benchmark
+    public Integer[] bidirectionalBfs() {
+        int i = next++ & (QUERIES - 1);
+        return graph.bidirectionalBFS(from[i], to[i]);
+    }
+
+    @Benchmark
+    public Integer[] shortestWeightedPath() {
+        int i = next++ & (QUERIES - 1);
+        return graph.shortestWeightedPath(from[i], to[i]);
+    }
+
+    @Benchmark
+    public PathBuffer<Integer> bfsIntoBuffer() {
+        int i = next++ & (QUERIES - 1);
+        graph.BFS(from[i], to[i], path);
+        return path;
+    }
+
+    @Benchmark
+    public PathBuffer<Integer> bidirectionalBfsIntoBuffer() {
+        int i = next++ & (QUERIES - 1);
+        graph.bidirectionalBFS(from[i], to[i], path);
+        return path;
+    }
+}